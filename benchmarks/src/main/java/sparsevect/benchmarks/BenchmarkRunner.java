@@ -0,0 +1,165 @@
+package sparsevect.benchmarks;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Runs the benchmarks with the GC profiler (allocation rate and bytes per operation) and checks for regressions.
+ * <pre>
+ * java -jar benchmarks.jar [--baseline FILE] [--save-baseline FILE] [--threshold 0.10] [JMH options...]
+ * </pre>
+ * With --baseline every result is compared against the score stored for the same benchmark and parameters.
+ * If one is slower by more than the threshold (default 10%), the run exits with status 1.
+ * --save-baseline writes the scores of this run, to be used as baseline later.
+ * Everything else is handed to JMH, for example {@code -p dimension=1000000 setRandom}.
+ * Without benchmark names every benchmark class runs once per dimension, with only the densities that stay under
+ * {@link RandomVectors#MAX_NNZ}, and the skipped combinations are listed. With names JMH gets the parameters as they
+ * are and fails the combinations over the cap.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException, CommandLineOptionException {
+        Path baseline = null;
+        Path saveBaseline = null;
+        double threshold = 0.10;
+        List<String> jmhArgs = new ArrayList<>();
+        for(int i = 0; i < args.length; i++){
+            switch(args[i]){
+                case "--baseline":
+                    baseline = Path.of(args[++i]);
+                    break;
+                case "--save-baseline":
+                    saveBaseline = Path.of(args[++i]);
+                    break;
+                case "--threshold":
+                    threshold = Double.parseDouble(args[++i]);
+                    break;
+                default:
+                    jmhArgs.add(args[i]);
+            }
+        }
+        CommandLineOptions commandLine = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        List<RunResult> results = new ArrayList<>();
+        if(commandLine.getIncludes().isEmpty()){
+            results.addAll(runCapped(commandLine, SparseVectorBenchmark.class));
+            results.addAll(runCapped(commandLine, DenseKernelBenchmark.class));
+            results.addAll(runCapped(commandLine, StorageBenchmark.class));
+        } else {
+            OptionsBuilder options = new OptionsBuilder();
+            options.parent(commandLine);
+            options.addProfiler(GCProfiler.class);
+            results.addAll(new Runner(options.build()).run());
+        }
+
+        Map<String, Double> scores = new TreeMap<>();
+        for(RunResult result : results){
+            scores.put(key(result), result.getPrimaryResult().getScore());
+        }
+        if(saveBaseline != null)
+            save(scores, saveBaseline);
+        if(baseline != null && !compare(scores, load(baseline), threshold))
+            System.exit(1);
+    }
+
+    //Runs one benchmark class per dimension with the densities that fit under the cap.
+    //The parameters come from the command line (-p) or else from the @Param defaults of the class.
+    private static Collection<RunResult> runCapped(CommandLineOptions commandLine, Class<?> benchmark) throws RunnerException {
+        List<RunResult> results = new ArrayList<>();
+        for(String dimension : parameter(commandLine, benchmark, "dimension")){
+            List<String> densities = new ArrayList<>();
+            for(String density : parameter(commandLine, benchmark, "density")){
+                if(RandomVectors.fitsCap(Integer.parseInt(dimension), Double.parseDouble(density)))
+                    densities.add(density);
+                else
+                    System.out.println("SKIPPED " + benchmark.getSimpleName() + " dimension=" + dimension + " density=" + density
+                            + ": more than " + RandomVectors.MAX_NNZ + " non-zero Values");
+            }
+            if(densities.isEmpty())
+                continue;
+            OptionsBuilder options = new OptionsBuilder();
+            options.parent(commandLine);
+            options.addProfiler(GCProfiler.class);
+            options.include(benchmark.getSimpleName());
+            options.param("dimension", dimension);
+            options.param("density", densities.toArray(new String[0]));
+            results.addAll(new Runner(options.build()).run());
+        }
+        return results;
+    }
+
+    private static Collection<String> parameter(CommandLineOptions commandLine, Class<?> benchmark, String name){
+        if(commandLine.getParameter(name).hasValue())
+            return commandLine.getParameter(name).get();
+        try {
+            return List.of(benchmark.getField(name).getAnnotation(Param.class).value());
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException(benchmark.getSimpleName() + " has no parameter " + name, e);
+        }
+    }
+
+    //Benchmark name and all parameters, for example "SparseVectorBenchmark.add density=0.001 dimension=1000"
+    private static String key(RunResult result){
+        StringBuilder key = new StringBuilder(result.getParams().getBenchmark());
+        for(String param : new TreeSet<>(result.getParams().getParamsKeys())){
+            key.append(' ').append(param).append('=').append(result.getParams().getParam(param));
+        }
+        return key.toString();
+    }
+
+    //Scores are average times, so higher is slower
+    private static boolean compare(Map<String, Double> scores, Properties baseline, double threshold){
+        boolean ok = true;
+        for(Map.Entry<String, Double> score : scores.entrySet()){
+            String old = baseline.getProperty(score.getKey());
+            if(old == null)
+                continue;
+            double change = score.getValue() / Double.parseDouble(old) - 1.0;
+            if(change > threshold){
+                System.out.printf("REGRESSION %s: %.3f -> %.3f (%+.1f%%)%n", score.getKey(), Double.parseDouble(old), score.getValue(), change * 100);
+                ok = false;
+            }
+        }
+        System.out.println(ok ? "No regression above " + threshold * 100 + "%" : "Regressions above " + threshold * 100 + "% found");
+        return ok;
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try(InputStream in = Files.newInputStream(file)){
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static void save(Map<String, Double> scores, Path file) throws IOException {
+        Properties properties = new Properties();
+        for(Map.Entry<String, Double> score : scores.entrySet()){
+            properties.setProperty(score.getKey(), Double.toString(score.getValue()));
+        }
+        try(OutputStream out = Files.newOutputStream(file)){
+            properties.store(out, "SparseVector benchmark baseline, average time in microseconds per operation");
+        }
+    }
+}
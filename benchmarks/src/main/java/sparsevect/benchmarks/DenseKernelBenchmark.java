@@ -0,0 +1,66 @@
+package sparsevect.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import sparsevect.SparseVector;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sparse-dense loops (gathers and scatters) with and without the Vector API, over Dimension and density.
+ * These are the measurements behind the SIMD cut-over in DenseKernels.
+ *
+ * simd=false sets {@code -Dsparsevector.simd=false} before the library first runs a kernel. Every parameter combination
+ * runs in a fork of its own, so both paths are measured in the same way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class DenseKernelBenchmark {
+
+    @Param({"4096", "4000000"})
+    public int dimension;
+
+    @Param({"0.0001", "0.001", "0.01", "0.1", "0.5"})
+    public double density;
+
+    @Param({"true", "false"})
+    public boolean simd;
+
+    SparseVector vector;
+    double[] dense;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        //DenseKernels reads the flag once, when the first kernel runs, which is only in the benchmark methods
+        System.setProperty("sparsevector.simd", Boolean.toString(simd));
+        vector = RandomVectors.vector(dimension, density, 1);
+        dense = RandomVectors.values(dimension, 2);
+    }
+
+    @Benchmark
+    public double dot(){
+        return vector.dot(dense);
+    }
+
+    @Benchmark
+    public double[] scatterAdd(){
+        //Adding and subtracting keeps the Values of dense from drifting away over the iterations
+        vector.scatterAdd(1.0, dense);
+        vector.scatterAdd(-1.0, dense);
+        return dense;
+    }
+}
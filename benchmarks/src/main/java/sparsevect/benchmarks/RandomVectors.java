@@ -0,0 +1,138 @@
+package sparsevect.benchmarks;
+
+import sparsevect.SparseVector;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible random input for the benchmarks. The same dimension, density and seed always give the same Vectors
+ * and index orders, on every machine and JDK.
+ */
+public final class RandomVectors {
+    //Cap on the non-zero count, so the Vectors of one benchmark fit into its heap. 3*10^8 Dimensions at density 0.5 do not.
+    public static final int MAX_NNZ = 10_000_000;
+
+    private RandomVectors() {
+    }
+
+    /**
+     * @return round(dimension * density), at least 1
+     * @throws IllegalArgumentException if that is more than {@link #MAX_NNZ}, the benchmark would not measure the asked density
+     */
+    public static int nonZeroCount(int dimension, double density) throws IllegalArgumentException {
+        if(!fitsCap(dimension, density))
+            throw new IllegalArgumentException("dimension " + dimension + " at density " + density + " needs "
+                    + Math.round(dimension * density) + " non-zero Values, more than the cap of " + MAX_NNZ);
+        return (int) Math.max(1, Math.min(Math.round(dimension * density), dimension));
+    }
+
+    /**
+     * @return true if a Vector of this dimension and density has at most {@link #MAX_NNZ} non-zero Values
+     */
+    public static boolean fitsCap(int dimension, double density){
+        return Math.round(dimension * density) <= MAX_NNZ;
+    }
+
+    /**
+     * nnz different indices in [0, dimension), sorted ascending
+     */
+    public static int[] sortedIndices(int dimension, int nnz, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        if((long) nnz * 8 >= dimension){
+            //Dense enough to walk all Dimensions once (selection sampling), every index is kept with the right chance
+            int[] indices = new int[nnz];
+            int chosen = 0;
+            for(int i = 0; i < dimension && chosen < nnz; i++){
+                if(random.nextInt(dimension - i) < nnz - chosen)
+                    indices[chosen++] = i;
+            }
+            return indices;
+        }
+        //Sparse: draw, sort, drop duplicates and draw again for what is missing
+        int[] indices = new int[0];
+        while(indices.length < nnz){
+            int missing = nnz - indices.length;
+            int[] more = Arrays.copyOf(indices, indices.length + missing);
+            for(int i = indices.length; i < more.length; i++){
+                more[i] = random.nextInt(dimension);
+            }
+            Arrays.sort(more);
+            int unique = 0;
+            for(int i = 0; i < more.length; i++){
+                if(i == 0 || more[i] != more[i - 1])
+                    more[unique++] = more[i];
+            }
+            indices = Arrays.copyOf(more, unique);
+        }
+        return indices;
+    }
+
+    /**
+     * Values in [-1, 1) without 0.0
+     */
+    public static double[] values(int nnz, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] values = new double[nnz];
+        for(int i = 0; i < nnz; i++){
+            double value;
+            do {
+                value = random.nextDouble(-1.0, 1.0);
+            } while(value == 0.0);
+            values[i] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Random Vector with about dimension * density non-zero Values
+     */
+    public static SparseVector vector(int dimension, double density, long seed){
+        int nnz = nonZeroCount(dimension, density);
+        int[] indices = sortedIndices(dimension, nnz, seed);
+        double[] values = values(nnz, seed + 1);
+        SparseVector.Builder builder = new SparseVector.Builder(dimension, nnz);
+        for(int i = 0; i < nnz; i++){
+            builder.append(indices[i], values[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Copy of indices in reverse order
+     */
+    public static int[] reversed(int[] indices){
+        int[] result = new int[indices.length];
+        for(int i = 0; i < indices.length; i++){
+            result[i] = indices[indices.length - 1 - i];
+        }
+        return result;
+    }
+
+    /**
+     * Copy of indices in random order (Fisher-Yates)
+     */
+    public static int[] shuffled(int[] indices, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] result = indices.clone();
+        for(int i = result.length - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            int swap = result[i];
+            result[i] = result[j];
+            result[j] = swap;
+        }
+        return result;
+    }
+
+    /**
+     * count indices in [0, dimension), about half of them taken from existing
+     */
+    public static int[] probes(int dimension, int[] existing, int count, long seed){
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] probes = new int[count];
+        for(int i = 0; i < count; i++){
+            probes[i] = i % 2 == 0 ? existing[random.nextInt(existing.length)] : random.nextInt(dimension);
+        }
+        return probes;
+    }
+}
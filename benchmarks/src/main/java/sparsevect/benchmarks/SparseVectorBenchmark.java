@@ -0,0 +1,140 @@
+package sparsevect.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sparsevect.SparseVector;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the basic SparseVector operations over Dimension and density.
+ * The set* benchmarks insert at most {@value #SET_MAX_NNZ} entries: inserting in reverse or random order
+ * moves the entries behind, and with millions of entries a single invocation would run for minutes.
+ * Combinations with more than {@link RandomVectors#MAX_NNZ} non-zero Values (3*10^8 Dimensions at density 0.5) are
+ * rejected by the set up; {@link BenchmarkRunner} does not start them in the first place.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "--add-modules", "jdk.incubator.vector"})
+public class SparseVectorBenchmark {
+    static final int SET_MAX_NNZ = 1 << 15;
+    static final int PROBES = 1024;
+
+    @Param({"1000", "1000000", "300000000"})
+    public int dimension;
+
+    @Param({"0.000001", "0.001", "0.5"})
+    public double density;
+
+    SparseVector vector;
+    SparseVector sameAsVector;
+    SparseVector other;
+    double[] dense;
+    int[] sequential;
+    int[] reverse;
+    int[] random;
+    double[] setValues;
+    int[] probes;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        vector = RandomVectors.vector(dimension, density, 1);
+        sameAsVector = vector.copy();
+        other = RandomVectors.vector(dimension, density, 2);
+        dense = vector.toArray();
+        int[] indices = vector.nonZeroIndices().toArray();
+        sequential = Arrays.copyOf(indices, Math.min(indices.length, SET_MAX_NNZ));
+        reverse = RandomVectors.reversed(sequential);
+        random = RandomVectors.shuffled(sequential, 3);
+        setValues = RandomVectors.values(sequential.length, 4);
+        probes = RandomVectors.probes(dimension, indices, PROBES, 5);
+    }
+
+    //Fresh copy of the Vector for every invocation of the benchmarks that change it
+    @State(Scope.Thread)
+    public static class WorkCopy {
+        SparseVector vector;
+
+        @Setup(Level.Invocation)
+        public void copy(SparseVectorBenchmark state){
+            vector = state.vector.copy();
+        }
+    }
+
+    @Benchmark
+    public SparseVector setSequential(){
+        return fill(sequential);
+    }
+
+    @Benchmark
+    public SparseVector setReverse(){
+        return fill(reverse);
+    }
+
+    @Benchmark
+    public SparseVector setRandom(){
+        return fill(random);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void getElement(Blackhole blackhole){
+        for(int index : probes){
+            blackhole.consume(vector.getElement(index));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public SparseVector removeElement(WorkCopy work){
+        for(int index : probes){
+            work.vector.removeElement(index);
+        }
+        return work.vector;
+    }
+
+    @Benchmark
+    public SparseVector add(WorkCopy work){
+        work.vector.add(other);
+        return work.vector;
+    }
+
+    @Benchmark
+    public boolean equalsSame(){
+        return vector.equals(sameAsVector);
+    }
+
+    @Benchmark
+    public double[] toArray(){
+        return vector.toArray();
+    }
+
+    @Benchmark
+    public SparseVector toSparseVector(){
+        return SparseVector.fromArray(dense);
+    }
+
+    private SparseVector fill(int[] order){
+        SparseVector result = new SparseVector(dimension);
+        for(int i = 0; i < order.length; i++){
+            result.setElement(order[i], setValues[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+package sparsevect.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import sparsevect.AdaptiveSparseVector;
+import sparsevect.HashSparseVector;
+import sparsevect.SparseVector;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Get and set in ordered and random order for the sorted Arrays, the hash table and AdaptiveSparseVector, over the fill.
+ * These are the measurements behind the switching thresholds of AdaptiveSparseVector: the densities sit around
+ * HASH_MIN_NNZ (128 entries), TO_SPARSE_FILL (1/8) and TO_DENSE_FILL (1/3).
+ * set* fill an empty Vector with all dimension * density entries, so the time is per Vector, and the GC profiler
+ * shows the Bytes allocated on the way, growing included. get* are per lookup, about half of them hit an entry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class StorageBenchmark {
+    static final int PROBES = 1024;
+
+    @Param({"sorted", "hash", "adaptive"})
+    public String storage;
+
+    @Param({"20000"})
+    public int dimension;
+
+    @Param({"0.001", "0.01", "0.05", "0.125", "0.333", "0.5"})
+    public double density;
+
+    int[] ordered;
+    int[] random;
+    double[] setValues;
+    int[] probes;
+    int[] orderedProbes;
+    //getElement of a Vector filled in random order, only one kind is used per fork
+    IntToDoubleFunction full;
+
+    @Setup(Level.Trial)
+    public void setUp(){
+        ordered = RandomVectors.vector(dimension, density, 1).nonZeroIndices().toArray();
+        random = RandomVectors.shuffled(ordered, 3);
+        setValues = RandomVectors.values(ordered.length, 4);
+        probes = RandomVectors.probes(dimension, ordered, PROBES, 5);
+        orderedProbes = probes.clone();
+        Arrays.sort(orderedProbes);
+        Object vector = fill(random);
+        if(vector instanceof HashSparseVector)
+            full = ((HashSparseVector) vector)::getElement;
+        else if(vector instanceof AdaptiveSparseVector)
+            full = ((AdaptiveSparseVector) vector)::getElement;
+        else
+            full = ((SparseVector) vector)::getElement;
+    }
+
+    @Benchmark
+    public Object setOrdered(){
+        return fill(ordered);
+    }
+
+    @Benchmark
+    public Object setRandom(){
+        return fill(random);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void getOrdered(Blackhole blackhole){
+        for(int index : orderedProbes){
+            blackhole.consume(full.applyAsDouble(index));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public void getRandom(Blackhole blackhole){
+        for(int index : probes){
+            blackhole.consume(full.applyAsDouble(index));
+        }
+    }
+
+    private Object fill(int[] order){
+        switch(storage){
+            case "hash":
+                HashSparseVector hash = new HashSparseVector(dimension);
+                for(int i = 0; i < order.length; i++){
+                    hash.setElement(order[i], setValues[i]);
+                }
+                return hash;
+            case "adaptive":
+                AdaptiveSparseVector adaptive = new AdaptiveSparseVector(dimension);
+                for(int i = 0; i < order.length; i++){
+                    adaptive.setElement(order[i], setValues[i]);
+                }
+                return adaptive;
+            case "sorted":
+                SparseVector sorted = new SparseVector(dimension);
+                for(int i = 0; i < order.length; i++){
+                    sorted.setElement(order[i], setValues[i]);
+                }
+                return sorted;
+            default:
+                throw new IllegalArgumentException("Unknown storage " + storage);
+        }
+    }
+}
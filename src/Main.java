@@ -1,3 +1,5 @@
+import sparsevect.SparseVector;
+
 import java.util.Arrays;
 
 // Press Shift twice to open the Search Everywhere dialog and type `show whitespaces`,
@@ -9,8 +11,8 @@ public class Main {
         //TODO: insert at wrong index
         double[] x = {1.0,-1.0,1.0, 1.0};
         double[] y = {0.0,1.0,-1.0, 1.0};
-        SparseVector X = new SparseVector().toSparseVector(x);
-        SparseVector Y = new SparseVector().toSparseVector(y);
+        SparseVector X = SparseVector.fromArray(x);
+        SparseVector Y = SparseVector.fromArray(y);
         SparseVector Z = new SparseVector(2);
         Z.setElement(0,1.0);
         Z.setElement(1,2.0);
@@ -0,0 +1,282 @@
+package sparsevect;
+
+/**
+ * AdaptiveSparseVector picks its storage by itself while it is used and switches when the use changes:
+ * <ul>
+ *     <li>sorted Arrays ({@link SparseVector}): least memory, fast ordered operations like add and dot.
+ *     Inserting in the middle has to move the entries behind, which gets expensive for random inserts.</li>
+ *     <li>hash table ({@link HashSparseVector}): O(1) random get/set/addTo, but about 2-4x the memory and no order.</li>
+ *     <li>dense double[]: 8 Bytes per Dimension, the fastest once a big part of the Vector is filled anyway.</li>
+ * </ul>
+ * Rules (nnz = non-zero count, fill = nnz / getLength()):
+ * <ul>
+ *     <li>fill of at least {@value #TO_DENSE_FILL} switches to dense, because dense then needs at most twice the memory
+ *     of the sorted Arrays. Below {@value #TO_SPARSE_FILL} it goes back to the sorted Arrays.</li>
+ *     <li>sorted switches to hash once nnz is at least {@value #HASH_MIN_NNZ} and more than nnz / {@value #RANDOM_INSERT_DIVISOR}
+ *     inserts since the last switch were not at the end.</li>
+ *     <li>hash switches back to sorted on the {@value #ORDERED_OPS_TO_SORT}nd ordered operation (add, dot, toSparseVector)
+ *     since the last switch.</li>
+ * </ul>
+ * Every switch is O(nnz) or O(nnz log nnz). Sorted and hash only switch after at least nnz / {@value #HYSTERESIS_DIVISOR}
+ * operations since the last switch. Switching to dense and back needs the fill to cross the gap between the two fill
+ * thresholds, which also takes at least that many changed entries. So switching costs amortized O(log nnz)
+ * per operation at worst, whatever the mix of operations.
+ * The thresholds are backed by {@code StorageBenchmark} in the benchmarks module.
+ */
+public class AdaptiveSparseVector {
+    static final double TO_DENSE_FILL = 1.0 / 3.0;
+    static final double TO_SPARSE_FILL = 1.0 / 8.0;
+    static final int HASH_MIN_NNZ = 128;
+    static final int RANDOM_INSERT_DIVISOR = 4;
+    static final int ORDERED_OPS_TO_SORT = 2;
+    static final int HYSTERESIS_DIVISOR = 4;
+
+    static final int SORTED = 0;
+    static final int HASH = 1;
+    static final int DENSE = 2;
+
+    private final int length;
+    private int storage = SORTED;
+    //Only the one belonging to storage is set
+    private SparseVector sorted;
+    private HashSparseVector hash;
+    private double[] dense;
+    private int denseNonZero;
+    //What happened since the last switch
+    private int randomInserts;
+    private int orderedOps;
+    private int operations;
+
+    /**
+     * Creates an AdaptiveSparseVector, it starts out with sorted Arrays
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     */
+    public AdaptiveSparseVector(int length) throws NegativeArraySizeException {
+        this.sorted = new SparseVector(length);
+        this.length = length;
+    }
+
+    /**
+     * Sets the Value at the specified Index
+     * @param index Where the value will be set.
+     * @param value The Value to set. 0.0 removes the entry.
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void setElement(int index, double value) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(storage == DENSE){
+            double old = dense[index];
+            dense[index] = value;
+            denseNonZero += (old == 0.0 ? 0 : -1) + (value == 0.0 ? 0 : 1);
+        } else if(storage == HASH){
+            hash.setElement(index, value);
+        } else {
+            countRandomInsert(index, value);
+            sorted.setElement(index, value);
+        }
+        adapt();
+    }
+
+    /**
+     * Adds delta to the Value at index. Values adding up to 0.0 are removed.
+     * @param index which Value to change
+     * @param delta what to add
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void addTo(int index, double delta) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(storage == HASH){
+            hash.addTo(index, delta);
+            adapt();
+        } else {
+            setElement(index, getElement(index) + delta);
+        }
+    }
+
+    /**
+     * @param index which Value to get
+     * @return Value at index, 0.0 if there is no entry
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(storage == DENSE)
+            return dense[index];
+        if(storage == HASH)
+            return hash.getElement(index);
+        return sorted.getElement(index);
+    }
+
+    /**
+     * Removes the Element at index
+     * @param index to remove. Removing a 0.0 is not wrong, so no error is thrown
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public void removeElement(int index) throws IndexOutOfBoundsException {
+        setElement(index, 0.0);
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Number of stored (non-zero) Values
+     * @return Integer of the non-zero count
+     */
+    public int getNonZeroCount(){
+        if(storage == DENSE)
+            return denseNonZero;
+        if(storage == HASH)
+            return hash.getNonZeroCount();
+        return sorted.getNonZeroCount();
+    }
+
+    /**
+     * Adds a SparseVector to this one
+     * @param other SparseVector that is to be added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void add(SparseVector other) throws ArithmeticException {
+        if(length != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + other.getLength());
+        orderedOp();
+        if(storage == DENSE){
+            for(int i = 0; i < other.size; i++){
+                int index = other.indices[i];
+                double old = dense[index];
+                dense[index] += other.values[i];
+                denseNonZero += (old == 0.0 ? 0 : -1) + (dense[index] == 0.0 ? 0 : 1);
+            }
+        } else if(storage == HASH){
+            hash.add(other);
+        } else {
+            sorted.add(other);
+        }
+        adapt();
+    }
+
+    /**
+     * Dot product with a SparseVector
+     * @param other the other SparseVector
+     * @return Sum of this[i] * other[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(SparseVector other) throws ArithmeticException {
+        orderedOp();
+        if(storage == DENSE)
+            return other.dot(dense);
+        if(storage == HASH)
+            return hash.dot(other);
+        return sorted.dot(other);
+    }
+
+    /**
+     * Compares with a SparseVector
+     * @param other the SparseVector to compare with
+     * @return true if both have the same Dimension and the same entries
+     */
+    public boolean equals(SparseVector other){
+        //Compares the storage in use, a comparison is not an ordered operation and must not cause a switch
+        if(storage == HASH)
+            return hash.equals(other);
+        if(storage == SORTED)
+            return sorted.equals(other);
+        if(length != other.getLength() || denseNonZero != other.size)
+            return false;
+        for(int i = 0; i < other.size; i++){
+            if(dense[other.indices[i]] != other.values[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts to a normal array
+     * @return Double[] Array
+     */
+    public double[] toArray(){
+        if(storage == DENSE)
+            return dense.clone();
+        if(storage == HASH)
+            return hash.toArray();
+        return sorted.toArray();
+    }
+
+    /**
+     * Copies the entries into a SparseVector
+     * @return SparseVector with the same entries
+     */
+    public SparseVector toSparseVector(){
+        orderedOp();
+        if(storage == DENSE)
+            return SparseVector.fromArray(dense);
+        if(storage == HASH)
+            return hash.toSparseVector();
+        return sorted.copy();
+    }
+
+    //Which storage is used right now, SORTED, HASH or DENSE
+    int getStorage(){
+        return storage;
+    }
+
+    //Switching rules, see the class comment
+    private void adapt(){
+        operations++;
+        int nnz = getNonZeroCount();
+        boolean settled = operations >= nnz / HYSTERESIS_DIVISOR;
+        double fill = length == 0 ? 0.0 : (double) nnz / length;
+        if(storage != DENSE && fill >= TO_DENSE_FILL){
+            dense = toArray();
+            denseNonZero = nnz;
+            switchTo(DENSE);
+        } else if(storage == DENSE && fill < TO_SPARSE_FILL){
+            sorted = SparseVector.fromArray(dense);
+            switchTo(SORTED);
+        } else if(storage == SORTED && settled && nnz >= HASH_MIN_NNZ && randomInserts > nnz / RANDOM_INSERT_DIVISOR){
+            hash = HashSparseVector.fromSparseVector(sorted);
+            switchTo(HASH);
+        } else if(storage == HASH && settled && orderedOps >= ORDERED_OPS_TO_SORT){
+            sorted = hash.toSparseVector();
+            switchTo(SORTED);
+        }
+    }
+
+    private void switchTo(int newStorage){
+        if(newStorage != SORTED)
+            sorted = null;
+        if(newStorage != HASH)
+            hash = null;
+        if(newStorage != DENSE)
+            dense = null;
+        storage = newStorage;
+        randomInserts = 0;
+        orderedOps = 0;
+        operations = 0;
+    }
+
+    //A new entry that is not behind the last one has to move entries in the sorted Arrays
+    private void countRandomInsert(int index, double value){
+        int nnz = sorted.size;
+        if(value != 0.0 && nnz > 0 && sorted.indices[nnz - 1] > index && sorted.find(index) < 0)
+            randomInserts++;
+    }
+
+    //Ordered operations only count towards switching back while in the hash table
+    private void orderedOp(){
+        if(storage == HASH){
+            orderedOps++;
+            adapt();
+        }
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+    }
+}
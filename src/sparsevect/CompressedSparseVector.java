@@ -0,0 +1,339 @@
+package sparsevect;
+
+import java.util.Arrays;
+
+/**
+ * CompressedSparseVector is a read-only SparseVector that needs a lot less memory, made with
+ * {@link #compress(SparseVector, int)}. It is meant for many Vectors that are read (dot, toArray) but not changed.
+ *
+ * Indices are cut into blocks of {@value #BLOCK_SIZE}. For every block the first index and the position of its data
+ * are kept (skip pointers), the other indices are stored as differences to the previous index in varints (1 byte for
+ * differences below 128, 2 bytes below 16384). {@link #getElement(int)} finds the block by binary search and then
+ * only decodes inside that block.
+ *
+ * Values are stored in one of these forms, which lose precision:
+ * <ul>
+ *     <li>{@link #FLOAT32}: 4 Bytes, relative error at most 2^-24 (about 7 decimal digits).</li>
+ *     <li>{@link #BFLOAT16}: 2 Bytes, the upper half of a float. Same range as float, relative error at most 2^-8
+ *     (about 0.4%, 2-3 decimal digits).</li>
+ *     <li>{@link #INT8}: 1 Byte, value = q * scale with q in [-127, 127] and scale = largest absolute Value / 127.
+ *     Absolute error at most scale / 2, so Values much smaller than the largest one become 0.0.</li>
+ * </ul>
+ * Values that round to 0.0 in the chosen encoding (float underflow below about 1.4e-45, or INT8 Values below scale / 2)
+ * are dropped when compressing, like the FLOAT32 mode of {@link SparseVectorWriter} does, so every stored entry
+ * is non-zero.
+ * Compared to 12 Bytes per entry in a SparseVector this is about 2-6 Bytes per entry, depending on the encoding
+ * and how far apart the indices are.
+ */
+public class CompressedSparseVector {
+    public static final int FLOAT32 = 0;
+    public static final int BFLOAT16 = 1;
+    public static final int INT8 = 2;
+
+    static final int BLOCK_SIZE = 128;
+
+    private final int length;
+    private final int nnz;
+    private final int encoding;
+    //First index of every block and where the varints of its other entries start in indexData
+    private final int[] blockFirst;
+    private final int[] blockOffset;
+    private final byte[] indexData;
+    //Only the Array belonging to encoding is set
+    private final float[] floats;
+    private final short[] halves;
+    private final byte[] quantized;
+    private final double scale;
+
+    private CompressedSparseVector(int length, int nnz, int encoding, int[] blockFirst, int[] blockOffset, byte[] indexData,
+                                   float[] floats, short[] halves, byte[] quantized, double scale){
+        this.length = length;
+        this.nnz = nnz;
+        this.encoding = encoding;
+        this.blockFirst = blockFirst;
+        this.blockOffset = blockOffset;
+        this.indexData = indexData;
+        this.floats = floats;
+        this.halves = halves;
+        this.quantized = quantized;
+        this.scale = scale;
+    }
+
+    /**
+     * Compresses a SparseVector
+     * @param vector the Vector to compress, it is not changed
+     * @param encoding {@link #FLOAT32}, {@link #BFLOAT16} or {@link #INT8}
+     * @return CompressedSparseVector with the rounded Values, without the ones that rounded to 0.0
+     * @throws IllegalArgumentException for an unknown encoding
+     */
+    public static CompressedSparseVector compress(SparseVector vector, int encoding) throws IllegalArgumentException {
+        if(encoding != FLOAT32 && encoding != BFLOAT16 && encoding != INT8)
+            throw new IllegalArgumentException("Unknown encoding " + encoding);
+        int size = vector.size;
+        int[] blockFirst = new int[(size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        int[] blockOffset = new int[blockFirst.length];
+        //A varint of an int is at most 5 bytes
+        byte[] indexData = new byte[size * 5];
+        float[] floats = encoding == FLOAT32 ? new float[size] : null;
+        short[] halves = encoding == BFLOAT16 ? new short[size] : null;
+        byte[] quantized = encoding == INT8 ? new byte[size] : null;
+        double scale = encoding == INT8 ? vector.normInf() / 127.0 : 0.0;
+        int nnz = 0;
+        int w = 0;
+        int previous = 0;
+        for(int i = 0; i < size; i++){
+            //Values that round to 0.0 are dropped, so every stored entry decodes to a non-zero Value
+            if(encoding == FLOAT32){
+                float value = (float) vector.values[i];
+                if(value == 0.0f)
+                    continue;
+                floats[nnz] = value;
+            } else if(encoding == BFLOAT16){
+                int bits = Float.floatToRawIntBits((float) vector.values[i]);
+                //Round to nearest, ties to even, then keep the upper 16 bits
+                bits += 0x7FFF + ((bits >>> 16) & 1);
+                short half = (short) (bits >>> 16);
+                //Without exponent and mantissa bits it is +0.0 or -0.0
+                if((half & 0x7FFF) == 0)
+                    continue;
+                halves[nnz] = half;
+            } else {
+                byte q = (byte) Math.round(vector.values[i] / scale);
+                if(q == 0)
+                    continue;
+                quantized[nnz] = q;
+            }
+            int index = vector.indices[i];
+            if(nnz % BLOCK_SIZE == 0){
+                blockFirst[nnz / BLOCK_SIZE] = index;
+                blockOffset[nnz / BLOCK_SIZE] = w;
+            } else {
+                int delta = index - previous;
+                while((delta & ~0x7F) != 0){
+                    indexData[w++] = (byte) ((delta & 0x7F) | 0x80);
+                    delta >>>= 7;
+                }
+                indexData[w++] = (byte) delta;
+            }
+            previous = index;
+            nnz++;
+        }
+        int blocks = (nnz + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        blockFirst = Arrays.copyOf(blockFirst, blocks);
+        blockOffset = Arrays.copyOf(blockOffset, blocks);
+        indexData = Arrays.copyOf(indexData, w);
+        if(floats != null)
+            floats = Arrays.copyOf(floats, nnz);
+        if(halves != null)
+            halves = Arrays.copyOf(halves, nnz);
+        if(quantized != null)
+            quantized = Arrays.copyOf(quantized, nnz);
+        return new CompressedSparseVector(vector.getLength(), nnz, encoding, blockFirst, blockOffset, indexData, floats, halves, quantized, scale);
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Number of stored (non-zero) Values. Values that rounded to 0.0 when compressing are not counted.
+     * @return Integer of the non-zero count
+     */
+    public int getNonZeroCount(){
+        return nnz;
+    }
+
+    /**
+     * @param index which Value to get
+     * @return decoded Value at index, 0.0 if there is no entry
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+        //Last block starting at or before index
+        int block = Arrays.binarySearch(blockFirst, index);
+        if(block >= 0)
+            return value(block * BLOCK_SIZE);
+        block = -block - 2;
+        if(block < 0)
+            return 0.0;
+        int current = blockFirst[block];
+        int at = blockOffset[block];
+        int end = Math.min((block + 1) * BLOCK_SIZE, nnz);
+        for(int i = block * BLOCK_SIZE + 1; i < end; i++){
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = indexData[at++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while(b < 0);
+            current += delta;
+            if(current == index)
+                return value(i);
+            if(current > index)
+                return 0.0;
+        }
+        return 0.0;
+    }
+
+    /**
+     * Calls action for every entry in ascending index order, decoding on the fly
+     * @param action gets index and decoded Value of each entry
+     */
+    public void forEachNonZero(IntDoubleConsumer action){
+        IndexDecoder decoder = new IndexDecoder();
+        for(int i = 0; i < nnz; i++){
+            action.accept(decoder.next(), value(i));
+        }
+    }
+
+    /**
+     * Dot product with a SparseVector. If other has a lot fewer entries, its indices are looked up block by block,
+     * otherwise both are walked side by side.
+     * @param other the other SparseVector
+     * @return Sum of this[i] * other[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(SparseVector other) throws ArithmeticException {
+        if(length != other.getLength())
+            throw new ArithmeticException("Can not multiply Vectors of length " + length + " and " + other.getLength());
+        double sum = 0.0;
+        if((long) other.size * BLOCK_SIZE < nnz){
+            for(int j = 0; j < other.size; j++){
+                sum += other.values[j] * getElement(other.indices[j]);
+            }
+            return sum;
+        }
+        SparseVector.Cursor cursor = other.cursor();
+        double[] result = new double[1];
+        forEachNonZero((index, value) -> {
+            if(cursor.skipTo(index) && cursor.index() == index)
+                result[0] += value * cursor.value();
+        });
+        return result[0];
+    }
+
+    /**
+     * Dot product with a normal Vector, decoding on the fly
+     * @param array the other Vector
+     * @return Sum of this[i] * array[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(double[] array) throws ArithmeticException {
+        if(length != array.length)
+            throw new ArithmeticException("Can not multiply Vectors of length " + length + " and " + array.length);
+        double[] result = new double[1];
+        forEachNonZero((index, value) -> result[0] += value * array[index]);
+        return result[0];
+    }
+
+    /**
+     * Adds a SparseVector to the decoded Values. The entries are decoded on the fly and merged with other,
+     * once to count the entries of the sum and once to write them into Arrays of exactly that size.
+     * @param other SparseVector that is to be added
+     * @return new SparseVector holding this + other
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public SparseVector plus(SparseVector other) throws ArithmeticException {
+        if(length != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + other.getLength());
+        int size = merge(other, null, null);
+        int[] indices = new int[size];
+        double[] values = new double[size];
+        merge(other, indices, values);
+        return new SparseVector(length, indices, values, size);
+    }
+
+    /**
+     * Decodes into a normal array
+     * @return Double[] Array
+     */
+    public double[] toArray(){
+        double[] array = new double[length];
+        forEachNonZero((index, value) -> array[index] = value);
+        return array;
+    }
+
+    /**
+     * Decodes into a SparseVector
+     * @return SparseVector with the decoded Values
+     */
+    public SparseVector toSparseVector(){
+        SparseVector.Builder builder = new SparseVector.Builder(length, nnz);
+        forEachNonZero(builder::append);
+        return builder.build();
+    }
+
+    //Decoded Value of entry i
+    private double value(int i){
+        if(encoding == FLOAT32)
+            return floats[i];
+        if(encoding == BFLOAT16)
+            return Float.intBitsToFloat(halves[i] << 16);
+        return quantized[i] * scale;
+    }
+
+    //Merges the decoded entries with other and returns how many entries the sum has.
+    //The sum is only written if indices is not null. Values adding up to 0.0 are left out.
+    private int merge(SparseVector other, int[] indices, double[] values){
+        IndexDecoder decoder = new IndexDecoder();
+        int i = 0, j = 0, w = 0;
+        int current = nnz > 0 ? decoder.next() : 0;
+        while(i < nnz || j < other.size){
+            int index;
+            double value;
+            if(j == other.size || (i < nnz && current < other.indices[j])){
+                index = current;
+                value = value(i++);
+                current = i < nnz ? decoder.next() : 0;
+            } else if(i == nnz || current > other.indices[j]){
+                index = other.indices[j];
+                value = other.values[j++];
+            } else {
+                index = current;
+                value = value(i++) + other.values[j++];
+                current = i < nnz ? decoder.next() : 0;
+            }
+            if(value == 0.0)
+                continue;
+            if(indices != null){
+                indices[w] = index;
+                values[w] = value;
+            }
+            w++;
+        }
+        return w;
+    }
+
+    //Decodes the indices in ascending order, one entry per call of next()
+    private final class IndexDecoder {
+        private int entry;
+        private int at;
+        private int current;
+
+        int next(){
+            if(entry % BLOCK_SIZE == 0){
+                current = blockFirst[entry / BLOCK_SIZE];
+            } else {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = indexData[at++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while(b < 0);
+                current += delta;
+            }
+            entry++;
+            return current;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package sparsevect;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrentSparseVector can be changed by many threads at the same time, for example to sum up gradients.
+ *
+ * The Dimension is cut into stripes of equal index ranges. Every stripe is its own {@link SparseVector} with its own lock,
+ * so writers only wait for each other when they hit the same range at the same time.
+ * {@link #addTo(int, double)} is atomic. {@link #add(SparseVector)} is atomic per stripe, not for the whole Vector.
+ * {@link #snapshot()} locks all stripes at once, so it never sees half of an {@link #addTo(int, double)}.
+ * Because stripes are index ranges, the snapshot is just the stripes copied one after another.
+ */
+public class ConcurrentSparseVector {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final int length;
+    //Indices [s * stripeWidth, (s + 1) * stripeWidth) are kept in stripes[s]
+    private final int stripeWidth;
+    private final SparseVector[] stripes;
+    private final ReentrantLock[] locks;
+
+    /**
+     * Creates a ConcurrentSparseVector with 64 stripes
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     */
+    public ConcurrentSparseVector(int length) throws NegativeArraySizeException {
+        this(length, DEFAULT_STRIPES);
+    }
+
+    /**
+     * Creates a ConcurrentSparseVector
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     * @param stripes how many independently locked index ranges there are, more stripes means less waiting
+     */
+    public ConcurrentSparseVector(int length, int stripes) throws NegativeArraySizeException, IllegalArgumentException {
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        if(stripes < 1)
+            throw new IllegalArgumentException("Vector needs at least one stripe");
+        this.length = length;
+        //No stripe without any index in it
+        stripes = Math.max(1, Math.min(stripes, length));
+        this.stripeWidth = (int) (((long) length + stripes - 1) / stripes);
+        this.stripes = new SparseVector[stripes];
+        this.locks = new ReentrantLock[stripes];
+        for(int s = 0; s < stripes; s++){
+            this.stripes[s] = new SparseVector(length);
+            this.locks[s] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Adds delta to the Value at index. Values adding up to 0.0 are removed.
+     * @param index which Value to change
+     * @param delta what to add
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void addTo(int index, double delta) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(delta == 0.0)
+            return;
+        int s = index / stripeWidth;
+        SparseVector stripe = stripes[s];
+        locks[s].lock();
+        try {
+            stripe.setElement(index, stripe.getElement(index) + delta);
+        } finally {
+            locks[s].unlock();
+        }
+    }
+
+    /**
+     * Sets the Value at the specified Index
+     * @param index Where the value will be set.
+     * @param value The Value to set, 0.0 removes the entry
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void setElement(int index, double value) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int s = index / stripeWidth;
+        locks[s].lock();
+        try {
+            stripes[s].setElement(index, value);
+        } finally {
+            locks[s].unlock();
+        }
+    }
+
+    /**
+     * @param index which Value to get
+     * @return Value at index, 0.0 if there is no entry
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int s = index / stripeWidth;
+        locks[s].lock();
+        try {
+            return stripes[s].getElement(index);
+        } finally {
+            locks[s].unlock();
+        }
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Adds a SparseVector. Each stripe only locks for the part of other that falls into its range,
+     * so other writers can keep working on the other stripes meanwhile.
+     * @param other SparseVector that is to be added, must not be changed while this runs
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void add(SparseVector other) throws ArithmeticException {
+        if(length != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + other.getLength());
+        int from = 0;
+        while(from < other.size){
+            int s = other.indices[from] / stripeWidth;
+            //Entries of other up to the end of this stripe
+            int to = other.find((int) Math.min((long) (s + 1) * stripeWidth, Integer.MAX_VALUE));
+            to = to >= 0 ? to : -to - 1;
+            locks[s].lock();
+            try {
+                stripes[s].mergeInPlace(1.0, other, from, to);
+            } finally {
+                locks[s].unlock();
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Copies the current state into a normal SparseVector. All stripes are locked while copying,
+     * writers wait for the copy, which is O(nnz).
+     * @return SparseVector with the same entries
+     */
+    public SparseVector snapshot(){
+        for(ReentrantLock lock : locks){
+            lock.lock();
+        }
+        try {
+            int total = 0;
+            for(SparseVector stripe : stripes){
+                total += stripe.size;
+            }
+            int[] indices = new int[total];
+            double[] values = new double[total];
+            int w = 0;
+            //Stripes are ordered by index, so copying them one after another keeps everything sorted
+            for(SparseVector stripe : stripes){
+                System.arraycopy(stripe.indices, 0, indices, w, stripe.size);
+                System.arraycopy(stripe.values, 0, values, w, stripe.size);
+                w += stripe.size;
+            }
+            return new SparseVector(length, indices, values, total);
+        } finally {
+            for(int s = locks.length - 1; s >= 0; s--){
+                locks[s].unlock();
+            }
+        }
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+    }
+}
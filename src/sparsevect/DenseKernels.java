@@ -0,0 +1,68 @@
+package sparsevect;
+
+/**
+ * Loops between the non-zero Values of a SparseVector and a normal (dense) Vector.
+ * These are gathers (read dense[indices[i]]) and scatters (write dense[indices[i]]).
+ *
+ * If the JVM was started with {@code --add-modules jdk.incubator.vector}, {@link SimdKernels} is used when the entries
+ * fill enough of the dense Vector, otherwise the plain loops below are used. At low fill every gather or scatter lane
+ * is a cache miss of its own and the SIMD set up only adds to it (DenseKernelBenchmark in the benchmarks module).
+ * The SIMD path can be switched off with {@code -Dsparsevector.simd=false}.
+ */
+final class DenseKernels {
+    //true when jdk.incubator.vector can be used. SimdKernels is only loaded when this is true.
+    static final boolean SIMD = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !"false".equals(System.getProperty("sparsevector.simd"));
+    //Below this many entries setting up the SIMD registers costs more than it saves
+    private static final int SIMD_MIN_SIZE = 32;
+    //SIMD needs at least 1 / SIMD_FILL of the dense Vector as entries. Measured on 4096 and 4*10^6 Dimensions:
+    //dot breaks even at a fill of about 0.005 and is faster from 0.01 on, scatters only from about 0.05 on.
+    private static final int DOT_SIMD_FILL = 128;
+    private static final int SCATTER_SIMD_FILL = 16;
+
+    private DenseKernels() {
+    }
+
+    /**
+     * Sum of values[i] * dense[indices[i]] for i in [from, to)
+     */
+    static double dot(int[] indices, double[] values, int from, int to, double[] dense){
+        if(useSimd(to - from, dense.length, DOT_SIMD_FILL))
+            return SimdKernels.dot(indices, values, from, to, dense);
+        double sum = 0.0;
+        for(int i = from; i < to; i++){
+            sum += values[i] * dense[indices[i]];
+        }
+        return sum;
+    }
+
+    /**
+     * dense[indices[i]] = values[i] for i in [0, size)
+     */
+    static void scatter(int[] indices, double[] values, int size, double[] dense){
+        if(useSimd(size, dense.length, SCATTER_SIMD_FILL)){
+            SimdKernels.scatter(indices, values, size, dense);
+            return;
+        }
+        for(int i = 0; i < size; i++){
+            dense[indices[i]] = values[i];
+        }
+    }
+
+    /**
+     * dense[indices[i]] += alpha * values[i] for i in [from, to). The indices must not repeat.
+     */
+    static void scatterAdd(double alpha, int[] indices, double[] values, int from, int to, double[] dense){
+        if(useSimd(to - from, dense.length, SCATTER_SIMD_FILL)){
+            SimdKernels.scatterAdd(alpha, indices, values, from, to, dense);
+            return;
+        }
+        for(int i = from; i < to; i++){
+            dense[indices[i]] += alpha * values[i];
+        }
+    }
+
+    private static boolean useSimd(int entries, int denseLength, int fill){
+        return SIMD && entries >= SIMD_MIN_SIZE && (long) entries * fill >= denseLength;
+    }
+}
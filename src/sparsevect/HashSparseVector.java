@@ -0,0 +1,291 @@
+package sparsevect;
+
+import java.util.Arrays;
+
+/**
+ * HashSparseVector keeps the non-zero Values in an open-addressing hash table of primitive ints and doubles.
+ * {@link #getElement(int)}, {@link #setElement(int, double)}, {@link #removeElement(int)} and {@link #addTo(int, double)}
+ * take O(1) no matter in which order the indices come, which suits feature hashing and counting.
+ * There is no order though, so everything that needs the entries sorted ({@link #toSparseVector()}) sorts them first.
+ *
+ * The table uses linear probing and is at most half full, which costs about 24 to 48 Bytes per entry.
+ * Removed entries are not marked but the following entries are moved back, so lookups never slow down after removing.
+ */
+public class HashSparseVector {
+    //Marks an empty slot, indices are never negative
+    private static final int FREE = -1;
+    private static final int MIN_CAPACITY = 16;
+
+    private final int length;
+    private int[] keys;
+    private double[] vals;
+    private int size;
+    //keys.length - 1, the capacity is always a power of two
+    private int mask;
+
+    /**
+     * Creates a HashSparseVector
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     */
+    public HashSparseVector(int length) throws NegativeArraySizeException {
+        this(length, 0);
+    }
+
+    /**
+     * Creates a HashSparseVector with room for a number of non-zero Values before the table has to grow
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     * @param capacity How many non-zero Values are expected
+     */
+    public HashSparseVector(int length, int capacity) throws NegativeArraySizeException {
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        if(capacity < 0)
+            throw new NegativeArraySizeException("Vector cant have a negative capacity");
+        this.length = length;
+        allocate(tableSizeFor(capacity));
+    }
+
+    /**
+     * Copies a SparseVector into a hash table
+     * @param vector the Vector to copy
+     * @return HashSparseVector with the same entries
+     */
+    public static HashSparseVector fromSparseVector(SparseVector vector){
+        HashSparseVector result = new HashSparseVector(vector.getLength(), vector.size);
+        for(int i = 0; i < vector.size; i++){
+            result.insertNew(vector.indices[i], vector.values[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Sets the Value at the specified Index
+     * @param index Where the value will be set.
+     * @param value The Value to set. 0.0 removes the entry.
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void setElement(int index, double value) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(value == 0.0){
+            removeElement(index);
+            return;
+        }
+        int slot = slot(index);
+        if(keys[slot] == index){
+            vals[slot] = value;
+            return;
+        }
+        insertAt(slot, index, value);
+    }
+
+    /**
+     * Adds delta to the Value at index, with a single lookup. Values adding up to 0.0 are removed.
+     * @param index which Value to change
+     * @param delta what to add
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void addTo(int index, double delta) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(delta == 0.0)
+            return;
+        int slot = slot(index);
+        if(keys[slot] != index){
+            insertAt(slot, index, delta);
+            return;
+        }
+        double sum = vals[slot] + delta;
+        if(sum == 0.0)
+            removeSlot(slot);
+        else
+            vals[slot] = sum;
+    }
+
+    /**
+     * @param index which Value to get
+     * @return Value at index, 0.0 if there is no entry
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int slot = slot(index);
+        return keys[slot] == index ? vals[slot] : 0.0;
+    }
+
+    /**
+     * Removes the Element at index
+     * @param index to remove. Removing a 0.0 is not wrong, so no error is thrown
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public void removeElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int slot = slot(index);
+        if(keys[slot] == index)
+            removeSlot(slot);
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Number of stored (non-zero) Values
+     * @return Integer of the non-zero count
+     */
+    public int getNonZeroCount(){
+        return size;
+    }
+
+    /**
+     * Adds a SparseVector to this one
+     * @param other SparseVector that is to be added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void add(SparseVector other) throws ArithmeticException {
+        if(length != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + other.getLength());
+        for(int i = 0; i < other.size; i++){
+            addTo(other.indices[i], other.values[i]);
+        }
+    }
+
+    /**
+     * Dot product with a SparseVector, every entry of other is looked up in the table
+     * @param other the other SparseVector
+     * @return Sum of this[i] * other[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(SparseVector other) throws ArithmeticException {
+        if(length != other.getLength())
+            throw new ArithmeticException("Can not multiply Vectors of length " + length + " and " + other.getLength());
+        double sum = 0.0;
+        for(int i = 0; i < other.size; i++){
+            int slot = slot(other.indices[i]);
+            if(keys[slot] == other.indices[i])
+                sum += vals[slot] * other.values[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Compares with a SparseVector
+     * @param other the SparseVector to compare with
+     * @return true if both have the same Dimension and the same entries
+     */
+    public boolean equals(SparseVector other){
+        if(length != other.getLength() || size != other.size)
+            return false;
+        for(int i = 0; i < other.size; i++){
+            int slot = slot(other.indices[i]);
+            if(keys[slot] != other.indices[i] || vals[slot] != other.values[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Converts to a normal array
+     * @return Double[] Array
+     */
+    public double[] toArray(){
+        double[] array = new double[length];
+        for(int slot = 0; slot < keys.length; slot++){
+            if(keys[slot] != FREE)
+                array[keys[slot]] = vals[slot];
+        }
+        return array;
+    }
+
+    /**
+     * Sorts the entries into a SparseVector
+     * @return SparseVector with the same entries
+     */
+    public SparseVector toSparseVector(){
+        SparseVector.Builder builder = new SparseVector.Builder(length, size);
+        for(int slot = 0; slot < keys.length; slot++){
+            if(keys[slot] != FREE)
+                builder.append(keys[slot], vals[slot]);
+        }
+        return builder.build();
+    }
+
+    //Helpers for the table
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+    }
+
+    //Slot holding index, or the free slot where it would go
+    private int slot(int index){
+        int slot = hash(index) & mask;
+        while(keys[slot] != FREE && keys[slot] != index){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    //Spreads neighbouring indices over the table (Fibonacci hashing)
+    private static int hash(int index){
+        int h = index * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void insertAt(int slot, int index, double value){
+        keys[slot] = index;
+        vals[slot] = value;
+        size++;
+        //Keep the table at most half full
+        if(size * 2 > keys.length)
+            rehash(keys.length * 2);
+    }
+
+    //Only for indices that are surely not in the table yet
+    private void insertNew(int index, double value){
+        insertAt(slot(index), index, value);
+    }
+
+    //Frees slot and moves back following entries that would not be found anymore otherwise
+    private void removeSlot(int slot){
+        int free = slot;
+        int next = (slot + 1) & mask;
+        while(keys[next] != FREE){
+            int home = hash(keys[next]) & mask;
+            //The entry at next may move to free if free lies between its home slot and next (cyclic)
+            if(((next - home) & mask) >= ((next - free) & mask)){
+                keys[free] = keys[next];
+                vals[free] = vals[next];
+                free = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[free] = FREE;
+        size--;
+    }
+
+    private void rehash(int capacity){
+        int[] oldKeys = keys;
+        double[] oldVals = vals;
+        allocate(capacity);
+        size = 0;
+        for(int slot = 0; slot < oldKeys.length; slot++){
+            if(oldKeys[slot] != FREE)
+                insertNew(oldKeys[slot], oldVals[slot]);
+        }
+    }
+
+    private void allocate(int capacity){
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        vals = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    //Smallest power of two that keeps capacity entries at most half full
+    private static int tableSizeFor(int capacity){
+        int needed = Math.max(MIN_CAPACITY, capacity * 2);
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+}
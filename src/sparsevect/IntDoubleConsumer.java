@@ -0,0 +1,14 @@
+package sparsevect;
+
+/**
+ * Takes an index and a Value, for example every non-zero entry of a {@link SparseVector}.
+ * Unlike a BiConsumer of Integer and Double nothing has to be boxed.
+ */
+@FunctionalInterface
+public interface IntDoubleConsumer {
+    /**
+     * @param index index of the entry
+     * @param value Value of the entry
+     */
+    void accept(int index, double value);
+}
@@ -0,0 +1,14 @@
+package sparsevect;
+
+/**
+ * Takes a long index and a Value, for example every non-zero entry of a {@link LongSparseVector}.
+ * Unlike a BiConsumer of Long and Double nothing has to be boxed.
+ */
+@FunctionalInterface
+public interface LongDoubleConsumer {
+    /**
+     * @param index index of the entry
+     * @param value Value of the entry
+     */
+    void accept(long index, double value);
+}
@@ -0,0 +1,481 @@
+package sparsevect;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * SparseVector with a long Dimension and long indices, for index spaces beyond Integer.MAX_VALUE such as hashed features.
+ *
+ * The entries are kept like in {@link SparseVector}: a sorted long index Array and a parallel double Array,
+ * so an entry costs 16 Bytes (long index + double) no matter how the indices are spread over the index space.
+ * add merges in a single pass from the back and dot gallops through the longer Vector when the sizes differ a lot,
+ * the same way SparseVector does it.
+ *
+ * {@link #fromSparseVector(SparseVector)} and {@link #toSparseVector()} convert from and to the int-indexed API,
+ * {@link #write(DataOutput, boolean)} and {@link #read(DataInput)} store a Vector in the record layout of
+ * {@link SparseVectorWriter} with long length and long varint indices.
+ */
+public class LongSparseVector {
+    private static final int DEFAULT_CAPACITY = 8;
+    //Ratio of entries from which on the shorter Vector gallops through the longer one instead of merging
+    private static final int GALLOP_RATIO = 16;
+
+    private final long length;
+    //indices[0..size) is strictly ascending, values[i] belongs to indices[i] and is never 0.0
+    private long[] indices;
+    private double[] values;
+    private int size;
+
+    /**
+     * Creates a LongSparseVector
+     * @param length Dimension of the Vector
+     */
+    public LongSparseVector(long length) throws NegativeArraySizeException {
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        this.length = length;
+        this.indices = new long[0];
+        this.values = new double[0];
+    }
+
+    //Takes sorted Arrays without copying
+    private LongSparseVector(long length, long[] indices, double[] values, int size){
+        this.length = length;
+        this.indices = indices;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Widens a SparseVector, the Values are copied
+     * @param vector SparseVector to convert
+     * @return LongSparseVector with the same length and entries
+     */
+    public static LongSparseVector fromSparseVector(SparseVector vector){
+        long[] indices = new long[vector.size];
+        for(int i = 0; i < vector.size; i++){
+            indices[i] = vector.indices[i];
+        }
+        return new LongSparseVector(vector.getLength(), indices, Arrays.copyOf(vector.values, vector.size), vector.size);
+    }
+
+    /**
+     * Builds a LongSparseVector from (index, value) pairs in any order. Values with the same index are summed up.
+     * @param length Dimension of the Vector
+     * @param indices where the Values go
+     * @param values the Values, values[i] belongs to indices[i]
+     * @return LongSparseVector holding the pairs
+     * @throws IllegalArgumentException if the Arrays have different lengths
+     * @throws IndexOutOfBoundsException if an index is negative or not below length
+     */
+    public static LongSparseVector fromPairs(long length, long[] indices, double[] values) throws IllegalArgumentException, IndexOutOfBoundsException {
+        if(indices.length != values.length)
+            throw new IllegalArgumentException("Got " + indices.length + " indices but " + values.length + " values");
+        LongSparseVector result = new LongSparseVector(length);
+        boolean sorted = true;
+        for(int i = 0; i < indices.length; i++){
+            result.checkIndex(indices[i]);
+            sorted &= i == 0 || indices[i - 1] < indices[i];
+        }
+        long[] sortedIndices = indices.clone();
+        double[] sortedValues;
+        if(sorted){
+            sortedValues = values.clone();
+        } else {
+            //Sort the indices, drop duplicates and sum up every Value at the position of its index
+            Arrays.sort(sortedIndices);
+            int distinct = 0;
+            for(int i = 0; i < sortedIndices.length; i++){
+                if(distinct == 0 || sortedIndices[i] != sortedIndices[distinct - 1])
+                    sortedIndices[distinct++] = sortedIndices[i];
+            }
+            sortedValues = new double[distinct];
+            for(int i = 0; i < indices.length; i++){
+                sortedValues[Arrays.binarySearch(sortedIndices, 0, distinct, indices[i])] += values[i];
+            }
+        }
+        result.indices = sortedIndices;
+        result.values = sortedValues;
+        result.size = sortedValues.length;
+        result.compact();
+        return result;
+    }
+
+    /**
+     * Sets the Value at the specified Index
+     * @param index Where the value will be set.
+     * @param value The Value to set. 0.0 removes the entry.
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void setElement(long index, double value) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(value == 0.0){
+            removeElement(index);
+            return;
+        }
+        //Appending behind the last entry needs no search
+        int pos = size == 0 || indices[size - 1] < index ? -size - 1 : find(index);
+        if(pos >= 0){
+            values[pos] = value;
+            return;
+        }
+        pos = -pos - 1;
+        if(size == indices.length)
+            grow(size + 1);
+        //Move everything behind pos one to the right
+        System.arraycopy(indices, pos, indices, pos + 1, size - pos);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        indices[pos] = index;
+        values[pos] = value;
+        size++;
+    }
+
+    /**
+     * @param index which Value to get. Will return 0.0 if the index is within the Vector but no entry exists
+     * @return Value at current Index
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(long index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int pos = find(index);
+        return pos >= 0 ? values[pos] : 0.0;
+    }
+
+    /**
+     * Removes the Element at index
+     * @param index to remove. Removing a 0.0 is not wrong, so no error is thrown
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public void removeElement(long index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int pos = find(index);
+        if(pos < 0)
+            return;
+        System.arraycopy(indices, pos + 1, indices, pos, size - pos - 1);
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Long of the Dimension
+     */
+    public long getLength(){
+        return length;
+    }
+
+    /**
+     * Number of stored (non-zero) Values
+     * @return Long of the non-zero count
+     */
+    public long getNonZeroCount(){
+        return size;
+    }
+
+    /**
+     * Copies the Vector, the copy does not share any storage with this one
+     * @return LongSparseVector with the same entries
+     */
+    public LongSparseVector copy(){
+        return new LongSparseVector(length, Arrays.copyOf(indices, size), Arrays.copyOf(values, size), size);
+    }
+
+    /**
+     * Compares two LongSparseVectors
+     * @param other the other LongSparseVector to compare with
+     * @return Boolean
+     */
+    public boolean equals(LongSparseVector other){
+        return this.length == other.length && this.size == other.size
+                && Arrays.equals(indices, 0, size, other.indices, 0, size)
+                && Arrays.equals(values, 0, size, other.values, 0, size);
+    }
+
+    /**
+     * Adds another LongSparseVector to this one
+     * @param other LongSparseVector that is to be added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void add(LongSparseVector other) throws ArithmeticException {
+        axpy(1.0, other);
+    }
+
+    /**
+     * Subtracts another LongSparseVector from this one
+     * @param other LongSparseVector that is to be subtracted
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void subtract(LongSparseVector other) throws ArithmeticException {
+        axpy(-1.0, other);
+    }
+
+    /**
+     * Adds a scaled LongSparseVector to this one (this += alpha * x) in a single merge pass
+     * @param alpha factor for x
+     * @param x LongSparseVector that is scaled and added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void axpy(double alpha, LongSparseVector x) throws ArithmeticException {
+        if(this.length != x.length)
+            throw new ArithmeticException("Can not add Vectors of length " + this.length + " and " + x.length);
+        if(alpha == 0.0 || x.size == 0)
+            return;
+        int union = unionSize(x);
+        if(union > indices.length)
+            grow(union);
+        //Read x after growing, x could be this
+        long[] xIdx = x.indices;
+        double[] xVal = x.values;
+        //From the back, so no entry of this is overwritten before it was read
+        int i = size - 1, j = x.size - 1, w = union - 1;
+        boolean cancelled = false;
+        while(j >= 0){
+            if(i >= 0 && indices[i] > xIdx[j]){
+                indices[w] = indices[i];
+                values[w] = values[i--];
+            } else if(i >= 0 && indices[i] == xIdx[j]){
+                double sum = values[i] + alpha * xVal[j--];
+                cancelled |= sum == 0.0;
+                indices[w] = indices[i--];
+                values[w] = sum;
+            } else {
+                double value = alpha * xVal[j];
+                cancelled |= value == 0.0;
+                indices[w] = xIdx[j--];
+                values[w] = value;
+            }
+            w--;
+        }
+        //Everything left in this is already at the right place
+        size = union;
+        if(cancelled)
+            compact();
+    }
+
+    /**
+     * Adds two LongSparseVectors without changing either of them
+     * @param other LongSparseVector that is to be added
+     * @return new LongSparseVector holding this + other
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public LongSparseVector plus(LongSparseVector other) throws ArithmeticException {
+        LongSparseVector result = copy();
+        result.add(other);
+        return result;
+    }
+
+    /**
+     * Dot product. Similar sizes are merged side by side, otherwise the shorter Vector gallops through the longer one.
+     * @param other LongSparseVector to multiply with
+     * @return Sum of this[i] * other[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(LongSparseVector other) throws ArithmeticException {
+        if(this.length != other.length)
+            throw new ArithmeticException("Can not multiply Vectors of length " + this.length + " and " + other.length);
+        //a is the shorter one and drives the loop
+        LongSparseVector a = size <= other.size ? this : other;
+        LongSparseVector b = a == this ? other : this;
+        if(a.size == 0)
+            return 0.0;
+        double sum = 0.0;
+        if(b.size / a.size < GALLOP_RATIO){
+            int i = 0, j = 0;
+            while(i < a.size && j < b.size){
+                if(a.indices[i] == b.indices[j])
+                    sum += a.values[i++] * b.values[j++];
+                else if(a.indices[i] < b.indices[j])
+                    i++;
+                else
+                    j++;
+            }
+            return sum;
+        }
+        int from = 0;
+        for(int i = 0; i < a.size && from < b.size; i++){
+            int pos = b.gallop(from, a.indices[i]);
+            if(pos >= 0){
+                sum += a.values[i] * b.values[pos];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Euclidean norm
+     * @return sqrt of the sum of the squared Values
+     */
+    public double norm2(){
+        double sum = 0.0;
+        for(int i = 0; i < size; i++){
+            sum += values[i] * values[i];
+        }
+        return Math.sqrt(sum);
+    }
+
+    /**
+     * Calls action for every non-zero entry, in ascending index order
+     * @param action gets index and Value of each entry
+     */
+    public void forEachNonZero(LongDoubleConsumer action){
+        for(int i = 0; i < size; i++){
+            action.accept(indices[i], values[i]);
+        }
+    }
+
+    /**
+     * Converts to an int-indexed SparseVector
+     * @return SparseVector with the same length and entries
+     * @throws ArithmeticException if the length does not fit into an int
+     */
+    public SparseVector toSparseVector() throws ArithmeticException {
+        if(length > Integer.MAX_VALUE)
+            throw new ArithmeticException("Can not convert a Vector of length " + length + " to int indices");
+        int[] intIndices = new int[size];
+        for(int i = 0; i < size; i++){
+            intIndices[i] = (int) indices[i];
+        }
+        return new SparseVector((int) length, intIndices, Arrays.copyOf(values, size), size);
+    }
+
+    /**
+     * Writes the Vector in the record layout of {@link SparseVectorWriter}, with long length and nnz:
+     * length (long) nnz (long) encoding (byte) indexBytes (int), the index deltas as unsigned long varints, then the Values.
+     * @param out where the Vector goes
+     * @param floatValues true to write the Values as 4 byte floats instead of 8 byte doubles
+     */
+    public void write(DataOutput out, boolean floatValues) throws IOException {
+        //A varint of a long is at most 10 bytes
+        if(size * 10L > Integer.MAX_VALUE)
+            throw new IOException("Vector with " + size + " entries is too large for one record");
+        byte[] encoded = new byte[size * 10];
+        int w = 0;
+        long prev = 0;
+        for(int i = 0; i < size; i++){
+            long delta = indices[i] - prev;
+            prev = indices[i];
+            while((delta & ~0x7FL) != 0){
+                encoded[w++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            encoded[w++] = (byte) delta;
+        }
+        out.writeLong(length);
+        out.writeLong(size);
+        out.writeByte(floatValues ? SparseVectorWriter.FLOAT32 : SparseVectorWriter.RAW_DOUBLE);
+        out.writeInt(w);
+        out.write(encoded, 0, w);
+        for(int i = 0; i < size; i++){
+            if(floatValues)
+                out.writeFloat((float) values[i]);
+            else
+                out.writeDouble(values[i]);
+        }
+    }
+
+    /**
+     * Reads a Vector written by {@link #write(DataOutput, boolean)}
+     * @param in where the Vector comes from
+     * @return the Vector
+     * @throws IOException if reading fails or the record is not valid
+     */
+    public static LongSparseVector read(DataInput in) throws IOException {
+        long length = in.readLong();
+        long nnz = in.readLong();
+        byte encoding = in.readByte();
+        int indexBytes = in.readInt();
+        if(length < 0 || nnz < 0 || nnz > length || nnz > Integer.MAX_VALUE || indexBytes < 0
+                || (encoding != SparseVectorWriter.RAW_DOUBLE && encoding != SparseVectorWriter.FLOAT32))
+            throw new IOException("Not a LongSparseVector record");
+        byte[] encoded = new byte[indexBytes];
+        in.readFully(encoded);
+        long[] indices = new long[(int) nnz];
+        int r = 0;
+        long index = 0;
+        for(int i = 0; i < nnz; i++){
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                if(r == indexBytes || shift > 63)
+                    throw new IOException("Broken index section");
+                b = encoded[r++];
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while(b < 0);
+            index += delta;
+            if(index < 0 || index >= length || (i > 0 && delta == 0))
+                throw new IOException("Index " + index + " is not valid for length " + length);
+            indices[i] = index;
+        }
+        double[] values = new double[(int) nnz];
+        for(int i = 0; i < nnz; i++){
+            values[i] = encoding == SparseVectorWriter.FLOAT32 ? in.readFloat() : in.readDouble();
+        }
+        //The indices were checked to be ascending, only Values stored as 0.0 have to go
+        LongSparseVector result = new LongSparseVector(length, indices, values, (int) nnz);
+        result.compact();
+        return result;
+    }
+
+    //Helpers
+    private void checkIndex(long index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+    }
+
+    //Same contract as Arrays.binarySearch
+    private int find(long index){
+        return Arrays.binarySearch(indices, 0, size, index);
+    }
+
+    //Exponential search for index in indices[from, size), same contract as Arrays.binarySearch
+    private int gallop(int from, long index){
+        int step = 1;
+        int hi = from;
+        while(hi < size && indices[hi] < index){
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        return Arrays.binarySearch(indices, from, Math.min(hi + 1, size), index);
+    }
+
+    //Number of distinct indices in this and other together
+    private int unionSize(LongSparseVector other){
+        int i = 0, j = 0, count = 0;
+        while(i < size && j < other.size){
+            long a = indices[i], b = other.indices[j];
+            if(a <= b) i++;
+            if(b <= a) j++;
+            count++;
+        }
+        return count + (size - i) + (other.size - j);
+    }
+
+    //Drops all entries that are 0.0, keeping the order
+    private void compact(){
+        int w = 0;
+        for(int r = 0; r < size; r++){
+            if(values[r] != 0.0){
+                indices[w] = indices[r];
+                values[w] = values[r];
+                w++;
+            }
+        }
+        size = w;
+    }
+
+    //Grows the Arrays by half their size, but never beyond the Dimension of the Vector
+    private void grow(int minCapacity){
+        long capacity = Math.max(indices.length + (indices.length >> 1), DEFAULT_CAPACITY);
+        capacity = Math.min(Math.max(capacity, minCapacity), Math.max(length, minCapacity));
+        indices = Arrays.copyOf(indices, (int) capacity);
+        values = Arrays.copyOf(values, (int) capacity);
+    }
+}
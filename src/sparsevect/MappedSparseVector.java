@@ -0,0 +1,160 @@
+package sparsevect;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Read-only view on a Vector inside a file mapped by {@link SparseVectorReader}.
+ * Nothing is copied when the view is created; the varint indices are decoded every time the Vector is read.
+ * Because of that {@link #getElement(int)} has to decode from the start and costs O(nnz).
+ * Use {@link #toSparseVector()} to get a normal SparseVector for a lot of random access.
+ */
+public class MappedSparseVector {
+    private final ByteBuffer data;
+    private final int length;
+    private final int nnz;
+    private final byte encoding;
+    //Where the values start inside data
+    private final int valuesStart;
+
+    MappedSparseVector(ByteBuffer data, int length, int nnz, byte encoding, int indexBytes){
+        this.data = data;
+        this.length = length;
+        this.nnz = nnz;
+        this.encoding = encoding;
+        this.valuesStart = indexBytes;
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Number of stored (non-zero) Values
+     * @return Integer of the non-zero count
+     */
+    public int getNonZeroCount(){
+        return nnz;
+    }
+
+    /**
+     * @param index which Value to get
+     * @return Value at index, 0.0 if there is no entry
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+        int at = 0;
+        int current = 0;
+        for(int i = 0; i < nnz; i++){
+            long decoded = readVarint(at);
+            at = (int) (decoded >>> 32);
+            current += (int) decoded;
+            if(current == index)
+                return value(i);
+            if(current > index)
+                return 0.0;
+        }
+        return 0.0;
+    }
+
+    /**
+     * Decodes into a normal array
+     * @return Double[] Array
+     */
+    public double[] toArray(){
+        double[] array = new double[length];
+        int at = 0;
+        int current = 0;
+        for(int i = 0; i < nnz; i++){
+            long decoded = readVarint(at);
+            at = (int) (decoded >>> 32);
+            current += (int) decoded;
+            array[current] = value(i);
+        }
+        return array;
+    }
+
+    /**
+     * Decodes into a SparseVector. Stored 0.0 Values (older files could have floats that underflowed) are dropped.
+     * @return SparseVector with the same entries
+     */
+    public SparseVector toSparseVector(){
+        SparseVector.Builder builder = new SparseVector.Builder(length, nnz);
+        int at = 0;
+        int current = 0;
+        for(int i = 0; i < nnz; i++){
+            long decoded = readVarint(at);
+            at = (int) (decoded >>> 32);
+            current += (int) decoded;
+            builder.append(current, value(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Dot product with a normal Vector, decoding on the fly
+     * @param array the other Vector
+     * @return Sum of this[i] * array[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(double[] array) throws ArithmeticException {
+        if(length != array.length)
+            throw new ArithmeticException("Can not multiply Vectors of length " + length + " and " + array.length);
+        double sum = 0.0;
+        int at = 0;
+        int current = 0;
+        for(int i = 0; i < nnz; i++){
+            long decoded = readVarint(at);
+            at = (int) (decoded >>> 32);
+            current += (int) decoded;
+            sum += value(i) * array[current];
+        }
+        return sum;
+    }
+
+    /**
+     * Compares with a SparseVector
+     * @param other the SparseVector to compare with
+     * @return true if both have the same Dimension and the same entries
+     */
+    public boolean equals(SparseVector other){
+        if(length != other.getLength() || nnz != other.size)
+            return false;
+        int at = 0;
+        int current = 0;
+        for(int i = 0; i < nnz; i++){
+            long decoded = readVarint(at);
+            at = (int) (decoded >>> 32);
+            current += (int) decoded;
+            if(current != other.indices[i] || value(i) != other.values[i])
+                return false;
+        }
+        return true;
+    }
+
+    //Decodes the varint starting at at. Returns the position behind it in the upper and the number in the lower 32 bits,
+    //so no object is needed to hand back both.
+    private long readVarint(int at){
+        int number = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data.get(at++);
+            number |= (b & 0x7F) << shift;
+            shift += 7;
+        } while(b < 0);
+        return ((long) at << 32) | (number & 0xFFFFFFFFL);
+    }
+
+    //Value number i, widened to double if it was written as float
+    private double value(int i){
+        if(encoding == SparseVectorWriter.FLOAT32)
+            return data.getFloat(valuesStart + i * Float.BYTES);
+        return data.getDouble(valuesStart + i * Double.BYTES);
+    }
+}
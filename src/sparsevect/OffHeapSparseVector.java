@@ -0,0 +1,373 @@
+package sparsevect;
+
+import java.lang.ref.Cleaner;
+import jdk.incubator.foreign.MemoryAccess;
+import jdk.incubator.foreign.MemorySegment;
+import jdk.incubator.foreign.ResourceScope;
+
+/**
+ * OffHeapSparseVector works like a {@link SparseVector}, but the sorted indices and Values live in native
+ * (off-heap) memory. The heap only holds this object and two MemorySegments, so the garbage
+ * collector does not have to look at the entries, no matter how many there are.
+ * Needs the JVM to be started with {@code --add-modules jdk.incubator.foreign}.
+ *
+ * The memory belongs to a ResourceScope and is freed right away by {@link #close()}; using the Vector afterwards
+ * throws an IllegalStateException. Use it in a try-with-resources block or close it when the Vector is not needed
+ * anymore. A Vector that was never closed is freed by a Cleaner once it is garbage collected. Growing closes the
+ * scope of the old memory, so no old copies are left behind waiting for the garbage collector.
+ * Every access is bounds checked by the segments, and sizes are computed in long Bytes, so the Vector is not
+ * limited to 2GB of entries.
+ *
+ * To work together with on-heap Vectors use {@link #add(SparseVector)}, {@link #equals(SparseVector)},
+ * {@link #toArray()}, {@link #toSparseVector()} and {@link #fromSparseVector(SparseVector)}.
+ */
+public class OffHeapSparseVector implements AutoCloseable {
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int length;
+    //indices[0..size) is strictly ascending, values[i] belongs to indices[i] and is never 0.0
+    //Both segments belong to scope, which is replaced when the memory grows
+    private ResourceScope scope;
+    private MemorySegment indices;
+    private MemorySegment values;
+    private long capacity;
+    private int size;
+    private boolean closed;
+
+    /**
+     * Creates an OffHeapSparseVector
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     */
+    public OffHeapSparseVector(int length) throws NegativeArraySizeException {
+        this(length, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an OffHeapSparseVector with room for a number of non-zero Values
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     * @param capacity How many non-zero Values can be stored before the memory has to grow
+     */
+    public OffHeapSparseVector(int length, int capacity) throws NegativeArraySizeException {
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        if(capacity < 0)
+            throw new NegativeArraySizeException("Vector cant have a negative capacity");
+        this.length = length;
+        resize(Math.min(capacity, length));
+    }
+
+    /**
+     * Copies an on-heap SparseVector into off-heap memory
+     * @param vector the Vector to copy
+     * @return OffHeapSparseVector with the same entries
+     */
+    public static OffHeapSparseVector fromSparseVector(SparseVector vector){
+        OffHeapSparseVector result = new OffHeapSparseVector(vector.getLength(), vector.size);
+        result.indices.copyFrom(MemorySegment.ofArray(vector.indices).asSlice(0, (long) vector.size * Integer.BYTES));
+        result.values.copyFrom(MemorySegment.ofArray(vector.values).asSlice(0, (long) vector.size * Double.BYTES));
+        result.size = vector.size;
+        return result;
+    }
+
+    /**
+     * Sets the Value at the specified Index
+     * @param index Where the value will be set.
+     * @param value The Value to set. 0.0 removes the entry.
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void setElement(int index, double value) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(value == 0.0){
+            removeElement(index);
+            return;
+        }
+        int pos = find(index);
+        if(pos >= 0){
+            putValue(pos, value);
+            return;
+        }
+        pos = -pos - 1;
+        if(size == capacity)
+            grow(size + 1);
+        //Move everything behind pos one to the right
+        if(pos < size)
+            move(pos, pos + 1, size - pos);
+        putIndex(pos, index);
+        putValue(pos, value);
+        size++;
+    }
+
+    /**
+     * @param index which Value to get. Will return 0.0 if the index is within the Vector but no entry exists
+     * @return Value at current Index
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int pos = find(index);
+        return pos >= 0 ? value(pos) : 0.0;
+    }
+
+    /**
+     * Removes the Element at index
+     * @param index to remove. Removing a 0.0 is not wrong, so no error is thrown
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public void removeElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        int pos = find(index);
+        if(pos < 0)
+            return;
+        if(pos < size - 1)
+            move(pos + 1, pos, size - pos - 1);
+        size--;
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Number of stored (non-zero) Values
+     * @return Integer of the non-zero count
+     */
+    public int getNonZeroCount(){
+        checkOpen();
+        return size;
+    }
+
+    /**
+     * Compares with an on-heap SparseVector
+     * @param other the SparseVector to compare with
+     * @return true if both have the same Dimension and the same entries
+     */
+    public boolean equals(SparseVector other){
+        checkOpen();
+        if(length != other.getLength() || size != other.size)
+            return false;
+        for(int i = 0; i < size; i++){
+            if(index(i) != other.indices[i] || value(i) != other.values[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compares two OffHeapSparseVectors
+     * @param other the OffHeapSparseVector to compare with
+     * @return true if both have the same Dimension and the same entries
+     */
+    public boolean equals(OffHeapSparseVector other){
+        checkOpen();
+        other.checkOpen();
+        if(length != other.length || size != other.size)
+            return false;
+        for(int i = 0; i < size; i++){
+            if(index(i) != other.index(i) || value(i) != other.value(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds an on-heap SparseVector to this one.
+     * The entries are merged in place from the back, the memory only grows if the union does not fit.
+     * @param other SparseVector that is to be added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void add(SparseVector other) throws ArithmeticException {
+        checkOpen();
+        if(length != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + other.getLength());
+        merge(MemorySegment.ofArray(other.indices), MemorySegment.ofArray(other.values), other.size);
+    }
+
+    /**
+     * Adds another OffHeapSparseVector to this one. Both stay off-heap, nothing is copied to the heap.
+     * @param other OffHeapSparseVector that is to be added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void add(OffHeapSparseVector other) throws ArithmeticException {
+        checkOpen();
+        other.checkOpen();
+        if(length != other.length)
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + other.length);
+        //Adding the Vector to itself never grows it, so the segments passed in stay open
+        merge(other.indices, other.values, other.size);
+    }
+
+    /**
+     * Converts to a normal array
+     * @return Double[] Array
+     */
+    public double[] toArray(){
+        checkOpen();
+        double[] array = new double[length];
+        for(int i = 0; i < size; i++){
+            array[index(i)] = value(i);
+        }
+        return array;
+    }
+
+    /**
+     * Copies the entries into an on-heap SparseVector
+     * @return SparseVector with the same entries
+     */
+    public SparseVector toSparseVector(){
+        checkOpen();
+        int[] heapIndices = indices.asSlice(0, (long) size * Integer.BYTES).toIntArray();
+        double[] heapValues = values.asSlice(0, (long) size * Double.BYTES).toDoubleArray();
+        return new SparseVector(length, heapIndices, heapValues, size);
+    }
+
+    /**
+     * Frees the off-heap memory. Closing twice does nothing.
+     */
+    @Override
+    public void close(){
+        //A scope can only be closed once, the Cleaner does nothing for a closed scope
+        if(closed)
+            return;
+        scope.close();
+        size = 0;
+        closed = true;
+    }
+
+    //Helpers
+    private void checkOpen() throws IllegalStateException {
+        if(closed)
+            throw new IllegalStateException("Vector is closed");
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException, IllegalStateException {
+        checkOpen();
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+    }
+
+    private int index(int pos){
+        return MemoryAccess.getIntAtIndex(indices, pos);
+    }
+
+    private double value(int pos){
+        return MemoryAccess.getDoubleAtIndex(values, pos);
+    }
+
+    private void putIndex(int pos, int index){
+        MemoryAccess.setIntAtIndex(indices, pos, index);
+    }
+
+    private void putValue(int pos, double value){
+        MemoryAccess.setDoubleAtIndex(values, pos, value);
+    }
+
+    //Moves count entries, the ranges may overlap
+    private void move(int from, int to, int count){
+        indices.asSlice((long) to * Integer.BYTES, (long) count * Integer.BYTES)
+                .copyFrom(indices.asSlice((long) from * Integer.BYTES, (long) count * Integer.BYTES));
+        values.asSlice((long) to * Double.BYTES, (long) count * Double.BYTES)
+                .copyFrom(values.asSlice((long) from * Double.BYTES, (long) count * Double.BYTES));
+    }
+
+    //Same contract as Arrays.binarySearch
+    private int find(int index){
+        int lo = 0, hi = size - 1;
+        while(lo <= hi){
+            int mid = (lo + hi) >>> 1;
+            int midIndex = index(mid);
+            if(midIndex < index)
+                lo = mid + 1;
+            else if(midIndex > index)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -(lo + 1);
+    }
+
+    //Adds sorted entries from segments, so heap arrays and off-heap memory go through the same loop
+    private void merge(MemorySegment otherIndices, MemorySegment otherValues, int otherSize){
+        if(otherSize == 0)
+            return;
+        //First pass only counts the union, so the memory grows at most once
+        int union = size + otherSize;
+        for(int i = 0, j = 0; i < size && j < otherSize; ){
+            int a = index(i);
+            int b = MemoryAccess.getIntAtIndex(otherIndices, j);
+            if(a == b){
+                union--;
+                i++;
+                j++;
+            } else if(a < b)
+                i++;
+            else
+                j++;
+        }
+        if(union > capacity)
+            grow(union);
+        //Back to front, the write position never overtakes an entry of this Vector that was not read yet
+        int i = size - 1, j = otherSize - 1, w = union - 1;
+        while(j >= 0){
+            int b = MemoryAccess.getIntAtIndex(otherIndices, j);
+            double bValue = MemoryAccess.getDoubleAtIndex(otherValues, j);
+            int a = i >= 0 ? index(i) : -1;
+            if(a > b){
+                putIndex(w, a);
+                putValue(w--, value(i--));
+            } else if(a < b){
+                putIndex(w, b);
+                putValue(w--, bValue);
+                j--;
+            } else {
+                double sum = value(i--) + bValue;
+                putIndex(w, b);
+                putValue(w--, sum);
+                j--;
+            }
+        }
+        //Everything left of this Vector is already in place
+        //Values adding up to 0.0 are dropped
+        int write = 0;
+        for(int read = 0; read < union; read++){
+            double value = value(read);
+            if(value != 0.0){
+                if(write != read){
+                    putIndex(write, index(read));
+                    putValue(write, value);
+                }
+                write++;
+            }
+        }
+        size = write;
+    }
+
+    private void grow(int minCapacity){
+        long newCapacity = Math.max(capacity + (capacity >> 1), DEFAULT_CAPACITY);
+        newCapacity = Math.min(Math.max(newCapacity, minCapacity), Math.max(length, minCapacity));
+        resize(newCapacity);
+    }
+
+    //Allocates the new memory in a scope of its own, copies the entries over and frees the old memory
+    private void resize(long newCapacity){
+        //Segments can not be empty, one entry is the smallest allocation
+        long entries = Math.max(newCapacity, 1);
+        ResourceScope newScope = ResourceScope.newSharedScope(CLEANER);
+        MemorySegment newIndices = MemorySegment.allocateNative(entries * Integer.BYTES, Integer.BYTES, newScope);
+        MemorySegment newValues = MemorySegment.allocateNative(entries * Double.BYTES, Double.BYTES, newScope);
+        if(size > 0){
+            newIndices.copyFrom(indices.asSlice(0, (long) size * Integer.BYTES));
+            newValues.copyFrom(values.asSlice(0, (long) size * Double.BYTES));
+        }
+        if(scope != null)
+            scope.close();
+        scope = newScope;
+        indices = newIndices;
+        values = newValues;
+        capacity = newCapacity;
+    }
+}
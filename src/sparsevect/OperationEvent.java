@@ -0,0 +1,29 @@
+package sparsevect;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event of an expensive {@link SparseVector} operation, see {@link VectorMetrics}
+ */
+@Name("sparsevect.Operation")
+@Label("SparseVector Operation")
+@Category("SparseVect")
+@Description("add, subtract, axpy, toArray or fromArray on a SparseVector")
+class OperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Length")
+    int length;
+
+    @Label("Non-zero Count")
+    int nonZeroCount;
+
+    @Label("Other non-zero Count")
+    @Description("non-zero count of the other Vector for add, otherwise 0")
+    int otherNonZeroCount;
+}
@@ -0,0 +1,414 @@
+package sparsevect;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Immutable SparseVector. Every change returns a new PersistentSparseVector and leaves the old one as it was,
+ * so a writer can publish versions (for example through a volatile field or an AtomicReference) and any number of
+ * readers can use them without locks or copies.
+ *
+ * The sorted entries are cut into blocks of about sqrt(nnz) (at least {@value #MIN_BLOCK}) entries, block b holds
+ * the indices in [firsts[b], firsts[b + 1]). {@link #with(int, double)} copies the block array (firsts and blocks) and
+ * the one changed block, all other blocks are shared with the old version, so an update costs O(sqrt(nnz)) instead of
+ * the O(nnz) of a full copy. {@link #plus(SparseVector)} shares every block without an index of the other Vector.
+ *
+ * {@link #freeze(SparseVector)} takes over the Arrays of a SparseVector in O(1): it starts with a single block that is
+ * cut into views on the first update, without copying the Values.
+ */
+public final class PersistentSparseVector {
+    static final int MIN_BLOCK = 64;
+    private static final int[] NO_FIRSTS = new int[0];
+    private static final Block[] NO_BLOCKS = new Block[0];
+
+    private final int length;
+    private final int nonZeroCount;
+    //Blocks are split once they get longer than 2 * blockSize
+    private final int blockSize;
+    private final int[] firsts;
+    private final Block[] blocks;
+
+    //Entries [from, to) of indices/values. Never changed after creation, the Arrays may be shared with other blocks.
+    static final class Block {
+        final int[] indices;
+        final double[] values;
+        final int from;
+        final int to;
+
+        Block(int[] indices, double[] values, int from, int to){
+            this.indices = indices;
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        int size(){
+            return to - from;
+        }
+    }
+
+    private PersistentSparseVector(int length, int nonZeroCount, int blockSize, int[] firsts, Block[] blocks){
+        this.length = length;
+        this.nonZeroCount = nonZeroCount;
+        this.blockSize = blockSize;
+        this.firsts = firsts;
+        this.blocks = blocks;
+    }
+
+    /**
+     * Creates an empty Vector
+     * @param length Dimension of the Vector
+     * @return PersistentSparseVector without non-zero Values
+     */
+    public static PersistentSparseVector empty(int length) throws NegativeArraySizeException {
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        return new PersistentSparseVector(length, 0, MIN_BLOCK, NO_FIRSTS, NO_BLOCKS);
+    }
+
+    /**
+     * Turns a SparseVector into a PersistentSparseVector in O(1) by taking over its Arrays.
+     * The SparseVector is left empty (same length, no entries) and can be filled again.
+     * @param vector SparseVector to take the entries from
+     * @return PersistentSparseVector with the entries vector had
+     */
+    public static PersistentSparseVector freeze(SparseVector vector){
+        int size = vector.size;
+        if(size == 0)
+            return empty(vector.getLength());
+        Block block = new Block(vector.indices, vector.values, 0, size);
+        PersistentSparseVector frozen = new PersistentSparseVector(vector.getLength(), size, blockSizeFor(size),
+                new int[]{vector.indices[0]}, new Block[]{block});
+        vector.assign(new int[0], new double[0], 0);
+        return frozen;
+    }
+
+    /**
+     * Copies a SparseVector, O(nnz). The SparseVector is not changed.
+     * @param vector SparseVector to copy
+     * @return PersistentSparseVector with the same entries
+     */
+    public static PersistentSparseVector of(SparseVector vector){
+        return freeze(vector.copy());
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Number of stored (non-zero) Values
+     * @return Integer of the non-zero count
+     */
+    public int getNonZeroCount(){
+        return nonZeroCount;
+    }
+
+    /**
+     * @param index which Value to get. Will return 0.0 if the index is within the Vector but no entry exists
+     * @return Value at index
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(blocks.length == 0)
+            return 0.0;
+        Block block = blocks[blockOf(index)];
+        int pos = Arrays.binarySearch(block.indices, block.from, block.to, index);
+        return pos >= 0 ? block.values[pos] : 0.0;
+    }
+
+    /**
+     * Returns a Vector with the Value at index set, this Vector does not change
+     * @param index Where the value will be set
+     * @param value The Value to set, 0.0 removes the entry
+     * @return new PersistentSparseVector, or this if nothing changes
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public PersistentSparseVector with(int index, double value) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(blocks.length == 0){
+            if(value == 0.0)
+                return this;
+            Block block = new Block(new int[]{index}, new double[]{value}, 0, 1);
+            return new PersistentSparseVector(length, 1, blockSize, new int[]{index}, new Block[]{block});
+        }
+        int b = blockOf(index);
+        Block block = blocks[b];
+        int pos = Arrays.binarySearch(block.indices, block.from, block.to, index);
+        if(pos < 0 && value == 0.0)
+            return this;
+        if(pos >= 0 && block.values[pos] == value)
+            return this;
+        if(block.size() > 2 * blockSize){
+            //First update after freeze or plus: cut the big block into views, nothing is copied for that
+            return cut(b).with(index, value);
+        }
+        int size = block.size();
+        int[] rIdx;
+        double[] rVal;
+        int count = nonZeroCount;
+        if(pos >= 0 && value != 0.0){
+            rIdx = Arrays.copyOfRange(block.indices, block.from, block.to);
+            rVal = Arrays.copyOfRange(block.values, block.from, block.to);
+            rVal[pos - block.from] = value;
+        } else if(pos >= 0){
+            //Remove the entry
+            pos -= block.from;
+            rIdx = new int[size - 1];
+            rVal = new double[size - 1];
+            System.arraycopy(block.indices, block.from, rIdx, 0, pos);
+            System.arraycopy(block.values, block.from, rVal, 0, pos);
+            System.arraycopy(block.indices, block.from + pos + 1, rIdx, pos, size - pos - 1);
+            System.arraycopy(block.values, block.from + pos + 1, rVal, pos, size - pos - 1);
+            count--;
+        } else {
+            //Insert the entry
+            pos = -pos - 1 - block.from;
+            rIdx = new int[size + 1];
+            rVal = new double[size + 1];
+            System.arraycopy(block.indices, block.from, rIdx, 0, pos);
+            System.arraycopy(block.values, block.from, rVal, 0, pos);
+            rIdx[pos] = index;
+            rVal[pos] = value;
+            System.arraycopy(block.indices, block.from + pos, rIdx, pos + 1, size - pos);
+            System.arraycopy(block.values, block.from + pos, rVal, pos + 1, size - pos);
+            count++;
+        }
+        BlockList replacement = new BlockList();
+        replacement.addChunked(rIdx, rVal, 0, rIdx.length, blockSize);
+        return replace(b, replacement, count);
+    }
+
+    /**
+     * Adds a SparseVector, this Vector does not change. Blocks that do not contain an index of other are shared.
+     * O(number of blocks + nnz of other + size of the blocks that change).
+     * @param other SparseVector that is to be added
+     * @return new PersistentSparseVector holding this + other
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public PersistentSparseVector plus(SparseVector other) throws ArithmeticException {
+        if(this.getLength() != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + this.getLength() + " and " + other.getLength());
+        if(other.size == 0)
+            return this;
+        if(blocks.length == 0)
+            return of(other);
+        BlockList result = new BlockList();
+        int count = 0;
+        int j = 0;
+        for(int b = 0; b < blocks.length; b++){
+            Block block = blocks[b];
+            //Entries of other that fall into the range of block b
+            int end = b + 1 < blocks.length ? firstAtOrAfter(other, j, firsts[b + 1]) : other.size;
+            if(end == j){
+                result.add(firsts[b], block);
+                count += block.size();
+                continue;
+            }
+            int union = block.size() + end - j;
+            int[] rIdx = new int[union];
+            double[] rVal = new double[union];
+            int w = mergeAdd(block, other, j, end, rIdx, rVal);
+            result.addChunked(rIdx, rVal, 0, w, blockSize);
+            count += w;
+            j = end;
+        }
+        return new PersistentSparseVector(length, count, Math.max(blockSize, blockSizeFor(count)), result.firsts(), result.blocks());
+    }
+
+    /**
+     * Adds another PersistentSparseVector, see {@link #plus(SparseVector)}
+     * @param other PersistentSparseVector that is to be added
+     * @return new PersistentSparseVector holding this + other
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public PersistentSparseVector plus(PersistentSparseVector other) throws ArithmeticException {
+        return plus(other.toSparseVector());
+    }
+
+    /**
+     * Calls action for every non-zero entry, in ascending index order
+     * @param action gets index and Value of each entry
+     */
+    public void forEachNonZero(IntDoubleConsumer action){
+        for(Block block : blocks){
+            for(int i = block.from; i < block.to; i++){
+                action.accept(block.indices[i], block.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Copies the entries into a new (mutable) SparseVector, O(nnz)
+     * @return SparseVector with the same entries
+     */
+    public SparseVector toSparseVector(){
+        int[] indices = new int[nonZeroCount];
+        double[] values = new double[nonZeroCount];
+        int w = 0;
+        for(Block block : blocks){
+            System.arraycopy(block.indices, block.from, indices, w, block.size());
+            System.arraycopy(block.values, block.from, values, w, block.size());
+            w += block.size();
+        }
+        return new SparseVector(length, indices, values, nonZeroCount);
+    }
+
+    /**
+     * Converts to an array
+     * @return Double[] Array
+     */
+    public double[] toArray(){
+        double[] array = new double[length];
+        for(Block block : blocks){
+            for(int i = block.from; i < block.to; i++){
+                array[block.indices[i]] = block.values[i];
+            }
+        }
+        return array;
+    }
+
+    /**
+     * Compares the entries of two PersistentSparseVectors
+     * @param other the other PersistentSparseVector to compare with
+     * @return Boolean
+     */
+    public boolean equals(PersistentSparseVector other){
+        if(this.length != other.length || this.nonZeroCount != other.nonZeroCount)
+            return false;
+        return this.toSparseVector().equals(other.toSparseVector());
+    }
+
+    //Number of blocks that are the same object in both Vectors, to check the sharing
+    int sharedBlocks(PersistentSparseVector other){
+        Set<Block> mine = Collections.newSetFromMap(new IdentityHashMap<>());
+        mine.addAll(Arrays.asList(blocks));
+        int shared = 0;
+        for(Block block : other.blocks){
+            if(mine.contains(block))
+                shared++;
+        }
+        return shared;
+    }
+
+    //Same Arrays for every block, to check that freeze did not copy
+    boolean usesArrays(int[] indices){
+        for(Block block : blocks){
+            if(block.indices != indices)
+                return false;
+        }
+        return true;
+    }
+
+    //Block for the index: the last one starting at or before it, the first block also takes everything before it
+    private int blockOf(int index){
+        int pos = Arrays.binarySearch(firsts, index);
+        return pos >= 0 ? pos : Math.max(-pos - 2, 0);
+    }
+
+    //Same Vector with block b cut into views of blockSize entries
+    private PersistentSparseVector cut(int b){
+        Block block = blocks[b];
+        BlockList pieces = new BlockList();
+        pieces.addChunked(block.indices, block.values, block.from, block.to, blockSize);
+        return replace(b, pieces, nonZeroCount);
+    }
+
+    //New Vector with block b replaced by the given blocks (none if the block became empty)
+    private PersistentSparseVector replace(int b, BlockList replacement, int count){
+        int n = replacement.size;
+        int[] rFirsts = new int[blocks.length - 1 + n];
+        Block[] rBlocks = new Block[blocks.length - 1 + n];
+        System.arraycopy(firsts, 0, rFirsts, 0, b);
+        System.arraycopy(blocks, 0, rBlocks, 0, b);
+        System.arraycopy(replacement.firsts, 0, rFirsts, b, n);
+        System.arraycopy(replacement.blocks, 0, rBlocks, b, n);
+        System.arraycopy(firsts, b + 1, rFirsts, b + n, blocks.length - b - 1);
+        System.arraycopy(blocks, b + 1, rBlocks, b + n, blocks.length - b - 1);
+        return new PersistentSparseVector(length, count, Math.max(blockSize, blockSizeFor(count)), rFirsts, rBlocks);
+    }
+
+    //Position of the first entry of other at or after from whose index is at least index
+    private static int firstAtOrAfter(SparseVector other, int from, int index){
+        int pos = SparseVector.gallop(other.indices, from, other.size, index);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    //Merges block and the entries [from, to) of other into rIdx/rVal, dropping 0.0s. Returns the number written.
+    private static int mergeAdd(Block block, SparseVector other, int from, int to, int[] rIdx, double[] rVal){
+        int i = block.from, j = from, w = 0;
+        while(i < block.to || j < to){
+            int index;
+            double value;
+            if(j >= to || (i < block.to && block.indices[i] < other.indices[j])){
+                index = block.indices[i];
+                value = block.values[i++];
+            } else if(i >= block.to || other.indices[j] < block.indices[i]){
+                index = other.indices[j];
+                value = other.values[j++];
+            } else {
+                index = block.indices[i];
+                value = block.values[i++] + other.values[j++];
+            }
+            if(value != 0.0){
+                rIdx[w] = index;
+                rVal[w] = value;
+                w++;
+            }
+        }
+        return w;
+    }
+
+    private static int blockSizeFor(int nnz){
+        return Math.max(MIN_BLOCK, (int) Math.sqrt(nnz));
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= length)
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+    }
+
+    //Growing list of (first index, block) used while building a new block array
+    private static class BlockList {
+        int[] firsts = new int[4];
+        Block[] blocks = new Block[4];
+        int size;
+
+        void add(int first, Block block){
+            if(size == firsts.length){
+                firsts = Arrays.copyOf(firsts, size * 2);
+                blocks = Arrays.copyOf(blocks, size * 2);
+            }
+            firsts[size] = first;
+            blocks[size] = block;
+            size++;
+        }
+
+        //Adds the entries [from, to) as views of at most 2 * blockSize entries each, nothing is copied
+        void addChunked(int[] indices, double[] values, int from, int to, int blockSize){
+            int pieces = (to - from + blockSize - 1) / blockSize;
+            if(to - from <= 2 * blockSize)
+                pieces = Math.min(pieces, 1);
+            for(int p = 0; p < pieces; p++){
+                int start = from + (int) ((long) (to - from) * p / pieces);
+                int end = from + (int) ((long) (to - from) * (p + 1) / pieces);
+                add(indices[start], new Block(indices, values, start, end));
+            }
+        }
+
+        int[] firsts(){
+            return Arrays.copyOf(firsts, size);
+        }
+
+        Block[] blocks(){
+            return Arrays.copyOf(blocks, size);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package sparsevect;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD versions of the {@link DenseKernels} loops using gather/scatter from the Java Vector API.
+ * Only call these when {@link DenseKernels#SIMD} is true, else this class can not be loaded.
+ * The indices Array is used directly as index map, so no IntVector has to be built for it.
+ */
+final class SimdKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private SimdKernels() {
+    }
+
+    static double dot(int[] indices, double[] values, int from, int to, double[] dense){
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()){
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector d = DoubleVector.fromArray(SPECIES, dense, 0, indices, i);
+            acc = v.fma(d, acc);
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        //Rest that does not fill a whole register
+        for(; i < to; i++){
+            sum += values[i] * dense[indices[i]];
+        }
+        return sum;
+    }
+
+    static void scatter(int[] indices, double[] values, int size, double[] dense){
+        int i = 0;
+        int bound = SPECIES.loopBound(size);
+        for(; i < bound; i += SPECIES.length()){
+            DoubleVector.fromArray(SPECIES, values, i).intoArray(dense, 0, indices, i);
+        }
+        for(; i < size; i++){
+            dense[indices[i]] = values[i];
+        }
+    }
+
+    static void scatterAdd(double alpha, int[] indices, double[] values, int from, int to, double[] dense){
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, alpha);
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        for(; i < bound; i += SPECIES.length()){
+            DoubleVector v = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector d = DoubleVector.fromArray(SPECIES, dense, 0, indices, i);
+            v.fma(factor, d).intoArray(dense, 0, indices, i);
+        }
+        for(; i < to; i++){
+            dense[indices[i]] += alpha * values[i];
+        }
+    }
+}
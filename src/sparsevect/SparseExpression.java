@@ -0,0 +1,281 @@
+package sparsevect;
+
+import java.util.Arrays;
+
+/**
+ * SparseExpression is a linear combination of SparseVectors (c1 * v1 + c2 * v2 + ...) that is not computed yet.
+ * Start one with {@link SparseVector#expr(SparseVector)} and chain terms:
+ * <pre>
+ * SparseVector r = SparseVector.expr(a).plus(2.0, b).minus(c).evaluate();
+ * double d = SparseVector.expr(a).minus(b).dot(c);
+ * </pre>
+ * Nothing happens until a result is asked for. Then all Vectors are merged in a single pass (a k-way merge over their
+ * sorted entries), so there are no intermediate Vectors, whatever the number of terms.
+ * The Vectors are read at that time, not when the term was added, and must not change during the merge.
+ * Every term costs O(k) per output entry to find the next index, so this is meant for a handful of terms;
+ * use {@link SparseVector#sum(java.util.Collection)} for thousands of Vectors.
+ *
+ * Expressions are immutable: plus, minus and times return a new expression and leave this one as it was,
+ * so a common part can be reused in several expressions.
+ */
+public class SparseExpression {
+    private final int length;
+    private final SparseVector[] vectors;
+    private final double[] factors;
+    private final int terms;
+
+    SparseExpression(SparseVector first){
+        this(first.getLength(), new SparseVector[]{first}, new double[]{1.0});
+    }
+
+    private SparseExpression(int length, SparseVector[] vectors, double[] factors){
+        this.length = length;
+        this.vectors = vectors;
+        this.factors = factors;
+        this.terms = vectors.length;
+    }
+
+    /**
+     * @param vector Vector to add
+     * @return new expression, this one is not changed
+     * @throws ArithmeticException if the Vector has a different Dimension
+     */
+    public SparseExpression plus(SparseVector vector) throws ArithmeticException {
+        return add(1.0, vector);
+    }
+
+    /**
+     * @param factor what vector is multiplied with
+     * @param vector Vector to add
+     * @return new expression, this one is not changed
+     * @throws ArithmeticException if the Vector has a different Dimension
+     */
+    public SparseExpression plus(double factor, SparseVector vector) throws ArithmeticException {
+        return add(factor, vector);
+    }
+
+    /**
+     * @param vector Vector to subtract
+     * @return new expression, this one is not changed
+     * @throws ArithmeticException if the Vector has a different Dimension
+     */
+    public SparseExpression minus(SparseVector vector) throws ArithmeticException {
+        return add(-1.0, vector);
+    }
+
+    /**
+     * Adds all terms of another expression
+     * @param other expression to add
+     * @return new expression, this one is not changed
+     * @throws ArithmeticException if the expression has a different Dimension
+     */
+    public SparseExpression plus(SparseExpression other) throws ArithmeticException {
+        return addAll(1.0, other);
+    }
+
+    /**
+     * Subtracts all terms of another expression
+     * @param other expression to subtract
+     * @return new expression, this one is not changed
+     * @throws ArithmeticException if the expression has a different Dimension
+     */
+    public SparseExpression minus(SparseExpression other) throws ArithmeticException {
+        return addAll(-1.0, other);
+    }
+
+    /**
+     * Multiplies the whole expression
+     * @param factor what every term is multiplied with
+     * @return new expression, this one is not changed
+     */
+    public SparseExpression times(double factor){
+        double[] scaled = new double[terms];
+        for(int t = 0; t < terms; t++){
+            scaled[t] = factors[t] * factor;
+        }
+        return new SparseExpression(length, vectors, scaled);
+    }
+
+    /**
+     * Dimension of the result
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * Calls action for every non-zero entry of the result in ascending index order, without storing the result
+     * @param action gets index and Value of each entry
+     */
+    public void forEachNonZero(IntDoubleConsumer action){
+        int[] pos = new int[terms];
+        while(true){
+            //Smallest index any term is at
+            int index = Integer.MAX_VALUE;
+            for(int t = 0; t < terms; t++){
+                if(pos[t] < vectors[t].size)
+                    index = Math.min(index, vectors[t].indices[pos[t]]);
+            }
+            if(index == Integer.MAX_VALUE)
+                return;
+            double value = 0.0;
+            for(int t = 0; t < terms; t++){
+                SparseVector vector = vectors[t];
+                if(pos[t] < vector.size && vector.indices[pos[t]] == index)
+                    value += factors[t] * vector.values[pos[t]++];
+            }
+            //Values adding up to 0.0 are not part of the result
+            if(value != 0.0)
+                action.accept(index, value);
+        }
+    }
+
+    /**
+     * Computes the result as a new Vector
+     * @return SparseVector holding the result
+     */
+    public SparseVector evaluate(){
+        SparseVector.Builder builder = new SparseVector.Builder(length, upperBound());
+        forEachNonZero(builder::append);
+        return builder.build();
+    }
+
+    /**
+     * Computes the result into target, replacing what was there. target may be one of the terms.
+     * The result is merged straight into the Arrays of target, which only grow if the result does not fit.
+     * @param target Vector that gets the result
+     * @throws ArithmeticException if target has a different Dimension
+     */
+    public void evaluateInto(SparseVector target) throws ArithmeticException {
+        if(target.getLength() != length)
+            throw new ArithmeticException("Can not evaluate an expression of length " + length + " into a Vector of length " + target.getLength());
+        boolean isTerm = false;
+        for(int t = 0; t < terms; t++){
+            isTerm |= vectors[t] == target;
+        }
+        //Entries of target that are not a term are not needed anymore, growing does not have to keep them
+        if(!isTerm)
+            target.size = 0;
+        int union = unionSize();
+        if(union > target.indices.length)
+            target.grow(union);
+        //Merge from the back: no term has more entries left than the union, so when target is a term,
+        //its entries are read before they are overwritten
+        int[] pos = new int[terms];
+        for(int t = 0; t < terms; t++){
+            pos[t] = vectors[t].size - 1;
+        }
+        int[] outIdx = target.indices;
+        double[] outVal = target.values;
+        for(int w = union - 1; w >= 0; w--){
+            //Largest index any term is at
+            int index = -1;
+            for(int t = 0; t < terms; t++){
+                if(pos[t] >= 0)
+                    index = Math.max(index, vectors[t].indices[pos[t]]);
+            }
+            double value = 0.0;
+            for(int t = 0; t < terms; t++){
+                SparseVector vector = vectors[t];
+                if(pos[t] >= 0 && vector.indices[pos[t]] == index)
+                    value += factors[t] * vector.values[pos[t]--];
+            }
+            outIdx[w] = index;
+            outVal[w] = value;
+        }
+        target.assign(outIdx, outVal, union);
+        //Values adding up to 0.0 are not part of the result
+        target.compact();
+    }
+
+    /**
+     * Dot product of the result with a Vector, without computing the result
+     * @param other the other Vector
+     * @return Sum of result[i] * other[i]
+     * @throws ArithmeticException if other has a different Dimension
+     */
+    public double dot(SparseVector other) throws ArithmeticException {
+        if(other.getLength() != length)
+            throw new ArithmeticException("Can not multiply Vectors of length " + length + " and " + other.getLength());
+        SparseVector.Cursor cursor = other.cursor();
+        double[] sum = new double[1];
+        forEachNonZero((index, value) -> {
+            if(cursor.skipTo(index) && cursor.index() == index)
+                sum[0] += value * cursor.value();
+        });
+        return sum[0];
+    }
+
+    /**
+     * Euclidean length of the result, without computing the result
+     * @return L2 norm
+     */
+    public double norm2(){
+        double[] sum = new double[1];
+        forEachNonZero((index, value) -> sum[0] += value * value);
+        return Math.sqrt(sum[0]);
+    }
+
+    /**
+     * Sum of the absolute Values of the result, without computing the result
+     * @return L1 norm
+     */
+    public double norm1(){
+        double[] sum = new double[1];
+        forEachNonZero((index, value) -> sum[0] += Math.abs(value));
+        return sum[0];
+    }
+
+    //Helpers
+    private SparseExpression add(double factor, SparseVector vector) throws ArithmeticException {
+        if(vector.getLength() != length)
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + vector.getLength());
+        SparseVector[] newVectors = Arrays.copyOf(vectors, terms + 1);
+        double[] newFactors = Arrays.copyOf(factors, terms + 1);
+        newVectors[terms] = vector;
+        newFactors[terms] = factor;
+        return new SparseExpression(length, newVectors, newFactors);
+    }
+
+    private SparseExpression addAll(double factor, SparseExpression other) throws ArithmeticException {
+        if(other.length != length)
+            throw new ArithmeticException("Can not add Vectors of length " + length + " and " + other.length);
+        SparseVector[] newVectors = Arrays.copyOf(vectors, terms + other.terms);
+        double[] newFactors = Arrays.copyOf(factors, terms + other.terms);
+        for(int t = 0; t < other.terms; t++){
+            newVectors[terms + t] = other.vectors[t];
+            newFactors[terms + t] = factor * other.factors[t];
+        }
+        return new SparseExpression(length, newVectors, newFactors);
+    }
+
+    //Number of distinct indices over all terms
+    private int unionSize(){
+        int[] pos = new int[terms];
+        int count = 0;
+        while(true){
+            int index = Integer.MAX_VALUE;
+            for(int t = 0; t < terms; t++){
+                if(pos[t] < vectors[t].size)
+                    index = Math.min(index, vectors[t].indices[pos[t]]);
+            }
+            if(index == Integer.MAX_VALUE)
+                return count;
+            for(int t = 0; t < terms; t++){
+                if(pos[t] < vectors[t].size && vectors[t].indices[pos[t]] == index)
+                    pos[t]++;
+            }
+            count++;
+        }
+    }
+
+    //Most entries the result can have
+    private int upperBound(){
+        long total = 0;
+        for(int t = 0; t < terms; t++){
+            total += vectors[t].size;
+        }
+        return (int) Math.min(total, length);
+    }
+}
@@ -0,0 +1,231 @@
+package sparsevect;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * SparseMatrix stores a matrix in compressed sparse row (CSR) form: the non-zero Values of all rows one after another
+ * in {@code values}, their columns in {@code columnIndices} and in {@code rowStart[r]} where row r begins.
+ * Row r is therefore the range [rowStart[r], rowStart[r + 1]).
+ *
+ * Build one from {@link SparseVector} rows with {@link #fromRows(List)}. The matrix can not be changed afterwards.
+ * {@link #multiplyParallel(double[])} splits the rows into chunks with about the same number of non-zero Values,
+ * so a few very full rows do not leave the other threads waiting.
+ */
+public class SparseMatrix {
+    //How many chunks per thread, more chunks even out rows that are slower than their nnz suggests
+    private static final int CHUNKS_PER_THREAD = 4;
+    //Below this many non-zero Values the parallel multiply just runs on the calling thread
+    private static final int PARALLEL_MIN_NNZ = 1 << 14;
+
+    private final int rows;
+    private final int columns;
+    private final int[] rowStart;
+    private final int[] columnIndices;
+    private final double[] values;
+
+    private SparseMatrix(int rows, int columns, int[] rowStart, int[] columnIndices, double[] values){
+        this.rows = rows;
+        this.columns = columns;
+        this.rowStart = rowStart;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    /**
+     * Stacks SparseVectors as rows of a matrix. The Values are copied, so the Vectors can be changed afterwards.
+     * @param rowVectors the rows, all of the same length
+     * @param columns number of columns, has to be the length of every row. Needed when there are no rows.
+     * @return SparseMatrix with rowVectors.size() rows
+     * @throws ArithmeticException if a row has a different length
+     */
+    public static SparseMatrix fromRows(List<SparseVector> rowVectors, int columns) throws ArithmeticException {
+        int rows = rowVectors.size();
+        int[] rowStart = new int[rows + 1];
+        long nnz = 0;
+        for(int r = 0; r < rows; r++){
+            SparseVector row = rowVectors.get(r);
+            if(row.getLength() != columns)
+                throw new ArithmeticException("Row " + r + " has length " + row.getLength() + " but the matrix has " + columns + " columns");
+            nnz += row.size;
+            if(nnz > Integer.MAX_VALUE)
+                throw new ArithmeticException("Matrix has more than " + Integer.MAX_VALUE + " non-zero Values");
+            rowStart[r + 1] = (int) nnz;
+        }
+        int[] columnIndices = new int[(int) nnz];
+        double[] values = new double[(int) nnz];
+        for(int r = 0; r < rows; r++){
+            SparseVector row = rowVectors.get(r);
+            System.arraycopy(row.indices, 0, columnIndices, rowStart[r], row.size);
+            System.arraycopy(row.values, 0, values, rowStart[r], row.size);
+        }
+        return new SparseMatrix(rows, columns, rowStart, columnIndices, values);
+    }
+
+    /**
+     * Stacks SparseVectors as rows of a matrix, the number of columns is the length of the first row.
+     * @param rowVectors the rows, at least one and all of the same length
+     * @return SparseMatrix with rowVectors.size() rows
+     * @throws ArithmeticException if a row has a different length
+     * @throws IllegalArgumentException if there are no rows
+     */
+    public static SparseMatrix fromRows(List<SparseVector> rowVectors) throws ArithmeticException, IllegalArgumentException {
+        if(rowVectors.isEmpty())
+            throw new IllegalArgumentException("Can not tell the number of columns without rows");
+        return fromRows(rowVectors, rowVectors.get(0).getLength());
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int getRows(){
+        return rows;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getColumns(){
+        return columns;
+    }
+
+    /**
+     * @return number of stored (non-zero) Values
+     */
+    public int getNonZeroCount(){
+        return rowStart[rows];
+    }
+
+    /**
+     * Copies a row out of the matrix
+     * @param row which row
+     * @return SparseVector of length getColumns()
+     * @throws IndexOutOfBoundsException if there is no such row
+     */
+    public SparseVector getRow(int row) throws IndexOutOfBoundsException {
+        if(row < 0 || row >= rows)
+            throw new IndexOutOfBoundsException("Row " + row + " is out of Bounds for " + rows + " rows");
+        int from = rowStart[row], to = rowStart[row + 1];
+        int[] rowIndices = new int[to - from];
+        double[] rowValues = new double[to - from];
+        System.arraycopy(columnIndices, from, rowIndices, 0, to - from);
+        System.arraycopy(values, from, rowValues, 0, to - from);
+        return new SparseVector(columns, rowIndices, rowValues, to - from);
+    }
+
+    /**
+     * Matrix times a normal Vector
+     * @param x Vector of length getColumns()
+     * @return Vector of length getRows()
+     * @throws ArithmeticException if x has the wrong length
+     */
+    public double[] multiply(double[] x) throws ArithmeticException {
+        checkColumns(x.length);
+        double[] y = new double[rows];
+        multiplyRows(x, y, 0, rows);
+        return y;
+    }
+
+    /**
+     * Matrix times a SparseVector. Every row is intersected with x, galloping when one side is a lot shorter.
+     * @param x SparseVector of length getColumns()
+     * @return SparseVector of length getRows()
+     * @throws ArithmeticException if x has the wrong length
+     */
+    public SparseVector multiply(SparseVector x) throws ArithmeticException {
+        checkColumns(x.getLength());
+        SparseVector.Builder result = new SparseVector.Builder(rows);
+        for(int r = 0; r < rows; r++){
+            //Rows come in order, so appending keeps the result sorted
+            result.append(r, SparseVector.dot(columnIndices, values, rowStart[r], rowStart[r + 1], x.indices, x.values, 0, x.size));
+        }
+        return result.build();
+    }
+
+    /**
+     * Transposed matrix times a normal Vector, without building the transposed matrix
+     * @param x Vector of length getRows()
+     * @return Vector of length getColumns()
+     * @throws ArithmeticException if x has the wrong length
+     */
+    public double[] transposeMultiply(double[] x) throws ArithmeticException {
+        if(x.length != rows)
+            throw new ArithmeticException("Can not multiply a transposed " + rows + "x" + columns + " matrix with a Vector of length " + x.length);
+        double[] y = new double[columns];
+        for(int r = 0; r < rows; r++){
+            if(x[r] == 0.0)
+                continue;
+            //Row r scaled by x[r] is added onto the result
+            DenseKernels.scatterAdd(x[r], columnIndices, values, rowStart[r], rowStart[r + 1], y);
+        }
+        return y;
+    }
+
+    /**
+     * Same as {@link #multiply(double[])}, but the rows are split up between the threads of the common ForkJoinPool
+     * @param x Vector of length getColumns()
+     * @return Vector of length getRows()
+     * @throws ArithmeticException if x has the wrong length
+     */
+    public double[] multiplyParallel(double[] x) throws ArithmeticException {
+        return multiplyParallel(x, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Same as {@link #multiply(double[])}, but the rows are split up between the threads of executor
+     * @param x Vector of length getColumns()
+     * @param executor runs the chunks
+     * @param parallelism how many threads the executor has, decides the number of chunks
+     * @return Vector of length getRows()
+     * @throws ArithmeticException if x has the wrong length
+     */
+    public double[] multiplyParallel(double[] x, Executor executor, int parallelism) throws ArithmeticException {
+        checkColumns(x.length);
+        double[] y = new double[rows];
+        int nnz = getNonZeroCount();
+        int chunks = Math.min(Math.max(parallelism, 1) * CHUNKS_PER_THREAD, rows);
+        if(nnz < PARALLEL_MIN_NNZ || chunks <= 1){
+            multiplyRows(x, y, 0, rows);
+            return y;
+        }
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[chunks];
+        int from = 0;
+        for(int c = 0; c < chunks; c++){
+            //Last row of this chunk is the first row that reaches the chunk's share of the non-zero Values
+            int to = c == chunks - 1 ? rows : firstRowReaching((long) nnz * (c + 1) / chunks, from);
+            int chunkFrom = from, chunkTo = to;
+            //Every chunk writes only its own rows of y, so no locking is needed
+            tasks[c] = CompletableFuture.runAsync(() -> multiplyRows(x, y, chunkFrom, chunkTo), executor);
+            from = to;
+        }
+        CompletableFuture.allOf(tasks).join();
+        return y;
+    }
+
+    //y[r] = row r times x for r in [from, to)
+    private void multiplyRows(double[] x, double[] y, int from, int to){
+        for(int r = from; r < to; r++){
+            y[r] = DenseKernels.dot(columnIndices, values, rowStart[r], rowStart[r + 1], x);
+        }
+    }
+
+    //Smallest row end at or after from where rowStart reaches target
+    private int firstRowReaching(long target, int from){
+        int lo = from, hi = rows;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(rowStart[mid + 1] < target)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return Math.min(lo + 1, rows);
+    }
+
+    private void checkColumns(int length) throws ArithmeticException {
+        if(length != columns)
+            throw new ArithmeticException("Can not multiply a " + rows + "x" + columns + " matrix with a Vector of length " + length);
+    }
+}
@@ -0,0 +1,1438 @@
+package sparsevect;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+
+/**
+ * SparseVector implements a so called Sparse Vector. This type of Vector is a lot more space efficient
+ * than a normal Vector in certain cases because only non-zero values are saved. For example a 300 Million - Dimensional
+ * Vector with 2 non-zero Values is about 2.4GB, while the same SparseVector is about 88B.
+ * To Transfer between Vector and SparseVector use the {@link #toArray()} and {@link #fromArray(double[])} methods.
+ * Many pairs at once are best put together with a {@link Builder} or {@link #fromPairs(int, int[], double[])}.
+ *
+ * The non-zero Values are kept in two parallel Arrays sorted by index ({@code indices} and {@code values}).
+ * Compared to the old linked List of Nodes (about 32 Bytes per Node plus a pointer chase per step) an entry costs
+ * 12 Bytes (at most 18 Bytes right after the Arrays grew), and lookups are a binary search instead of a walk from the head.
+ *
+ * Use {@link #setElement(int, double)} to set Values, {@link #getElement(int)} to get values and {@link #removeElement(int)} to remove Values.
+ * for comparing use {@link #equals(SparseVector)} and for adding {@link #add(SparseVector)}, {@link #subtract(SparseVector)}
+ * and {@link #axpy(double, SparseVector)}. {@link #plus(SparseVector)}, {@link #minus(SparseVector)} and
+ * {@link #plusScaled(double, SparseVector)} do the same but return a new Vector.
+ * Element-wise there are {@link #multiplyElements(SparseVector)}, {@link #minElements(SparseVector)}, {@link #maxElements(SparseVector)}
+ * and the support (set of non-zero indices) operations {@link #retainAll(SparseVector)}, {@link #removeAll(SparseVector)}
+ * and {@link #addAll(SparseVector)}, each with a static form returning a new Vector ({@link #hadamard(SparseVector, SparseVector)}, ...).
+ * {@link #scale(double)}, {@link #mapValues(java.util.function.DoubleUnaryOperator)}, {@link #pruneBelow(double)} and
+ * {@link #retainTopK(int)} change all Values in one pass and remove the entries that drop out.
+ */
+public class SparseVector {
+    //Capacity used when the first Element is set and no capacity was given
+    private static final int DEFAULT_CAPACITY = 8;
+    private static final int[] EMPTY_INDICES = new int[0];
+    private static final double[] EMPTY_VALUES = new double[0];
+
+    //indices[0..size) is strictly ascending, values[i] belongs to indices[i] and is never 0.0
+    int[] indices;
+    double[] values;
+    int size;
+    private int length;
+    //Sum of the squared Values, NaN when it has to be recomputed. Every change of a Value has to reset it.
+    private double squaredNorm = Double.NaN;
+
+    // 0-Dimensional Vector does not make sense, however the Standard constructor does exactly that.
+    public SparseVector() {
+        this.length = 0;
+        this.indices = EMPTY_INDICES;
+        this.values = EMPTY_VALUES;
+    }
+
+    /**
+     * Creates a SparseVector
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     */
+    public SparseVector(int length) throws NegativeArraySizeException{
+        this(length, 0);
+    }
+
+    /**
+     * Creates a SparseVector with room for a number of non-zero Values, so no growing is needed until they are set.
+     * @param length Dimension of the Vector. A Vector can not have more Dimensions added after Creation.
+     * @param capacity How many non-zero Values can be stored before the Arrays have to grow
+     */
+    public SparseVector(int length, int capacity) throws NegativeArraySizeException{
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        if(capacity < 0)
+            throw new NegativeArraySizeException("Vector cant have a negative capacity");
+        this.length = length;
+        //There can never be more non-zero Values than Dimensions
+        capacity = Math.min(capacity, length);
+        this.indices = capacity == 0 ? EMPTY_INDICES : new int[capacity];
+        this.values = capacity == 0 ? EMPTY_VALUES : new double[capacity];
+    }
+
+    //Takes over already sorted Arrays without copying, only the first size entries are used
+    SparseVector(int length, int[] indices, double[] values, int size){
+        this.length = length;
+        this.indices = indices;
+        this.values = values;
+        this.size = size;
+    }
+
+    /**
+     * Sets the Value at the specified Index
+     * @param index Where the value will be set.
+     * @param value The Value to set. Will create a new entry if the current Value is 0.
+     * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+     */
+    public void setElement(int index, double value) throws IndexOutOfBoundsException{
+        //Check if Index is in Bounds
+        checkIndex(index);
+        squaredNorm = Double.NaN;
+        //Do not set anything if value is 0.0
+        if(value == 0.0) {
+            //Removing non-existing entries is not a problem, so we'll just remove 0 values in all cases
+            //removeElement counts this as a REMOVE, so it is not counted as a SET as well
+            removeElement(index);
+            return;
+        }
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.record(VectorMetrics.Operation.SET, size);
+        //Appending behind the last entry is the common case when filling a Vector in order, no search needed
+        if(size == 0 || indices[size - 1] < index){
+            insertAt(size, index, value);
+            return;
+        }
+        int pos = find(index);
+        if(pos >= 0){
+            //Were at the index already
+            values[pos] = value;
+        } else {
+            //The index does not exist, binarySearch tells us where it has to go
+            insertAt(-pos - 1, index, value);
+        }
+    }
+
+    /**
+     *
+     * @param index which Value to get. Will return 0.0 if the index is within the Vector but no entry exists
+     * @return Value at current Index
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public double getElement(int index) throws IndexOutOfBoundsException{
+        checkIndex(index);
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.record(VectorMetrics.Operation.GET, size);
+        int pos = find(index);
+        //if there is nothing, the Value is 0.0, since there was no entry created.
+        return pos >= 0 ? values[pos] : 0.0;
+    }
+
+    /**
+     * Removes the Element at index
+     * @param index to remove. If the Element is already 0.0 at the specified index, removing it is not wrong, so no error is thrown
+     * @throws IndexOutOfBoundsException When trying to Access a negative or higher Dimension
+     */
+    public void removeElement(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.record(VectorMetrics.Operation.REMOVE, size);
+        int pos = find(index);
+        if(pos < 0)
+            //if there is nothing to remove, we just go back
+            return;
+        squaredNorm = Double.NaN;
+        //Close the gap by moving everything behind pos one to the left
+        int moved = size - pos - 1;
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.recordMoved(moved);
+        if(moved > 0){
+            System.arraycopy(indices, pos + 1, indices, pos, moved);
+            System.arraycopy(values, pos + 1, values, pos, moved);
+        }
+        size--;
+    }
+
+    /**
+     * Dimension of the Vector
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        //returns the Dimension (heres where the returning happens)
+        return this.length;
+        //Here is where Java will Pop the top of the Stack and Return to the Previous Element
+    }
+
+    /**
+     * Number of stored (non-zero) Values
+     * @return Integer of the non-zero count
+     */
+    public int getNonZeroCount(){
+        return this.size;
+    }
+
+    /**
+     * Copies the Vector, the copy does not share any storage with this one
+     * @return SparseVector with the same entries
+     */
+    public SparseVector copy(){
+        return new SparseVector(length, Arrays.copyOf(indices, size), Arrays.copyOf(values, size), size);
+    }
+
+    /**
+     * Compares to SparseVectors
+     * @param other the other SparseVector to compare with
+     * @return Boolean
+     */
+    public boolean equals(SparseVector other){
+        if(this.getLength() != other.getLength())
+            return false;
+        //Different number of entries can never be equal
+        if(this.size != other.size)
+            return false;
+        for(int i = 0; i < size; i++){
+            //Run the Vectors, if either Value or Index are different, the Vectors are different
+            if(this.values[i] != other.values[i] || this.indices[i] != other.indices[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds to SparseVectors together. Both Vectors are walked once side by side, so this is O(n + m).
+     * @param other SparseVector that is to be added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void add(SparseVector other) throws ArithmeticException {
+        if(this.getLength() != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + this.getLength() + " and " + other.getLength());
+        OperationEvent event = VectorMetrics.ENABLED ? VectorMetrics.start() : null;
+        mergeInPlace(1.0, other);
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.finish(event, VectorMetrics.Operation.ADD, length, size, other.size);
+    }
+
+    /**
+     * Subtracts another SparseVector from this one
+     * @param other SparseVector that is to be subtracted
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void subtract(SparseVector other) throws ArithmeticException {
+        if(this.getLength() != other.getLength())
+            throw new ArithmeticException("Can not subtract Vectors of length " + this.getLength() + " and " + other.getLength());
+        OperationEvent event = VectorMetrics.ENABLED ? VectorMetrics.start() : null;
+        mergeInPlace(-1.0, other);
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.finish(event, VectorMetrics.Operation.ADD, length, size, other.size);
+    }
+
+    /**
+     * Adds a scaled SparseVector to this one (this += alpha * x)
+     * @param alpha factor for x
+     * @param x SparseVector that is scaled and added
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void axpy(double alpha, SparseVector x) throws ArithmeticException {
+        if(this.getLength() != x.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + this.getLength() + " and " + x.getLength());
+        OperationEvent event = VectorMetrics.ENABLED ? VectorMetrics.start() : null;
+        mergeInPlace(alpha, x);
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.finish(event, VectorMetrics.Operation.ADD, length, size, x.size);
+    }
+
+    /**
+     * Adds to SparseVectors together without changing either of them
+     * @param other SparseVector that is to be added
+     * @return new SparseVector holding this + other
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public SparseVector plus(SparseVector other) throws ArithmeticException {
+        if(this.getLength() != other.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + this.getLength() + " and " + other.getLength());
+        return mergeCopy(1.0, other);
+    }
+
+    /**
+     * Subtracts another SparseVector without changing either of them
+     * @param other SparseVector that is to be subtracted
+     * @return new SparseVector holding this - other
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public SparseVector minus(SparseVector other) throws ArithmeticException {
+        if(this.getLength() != other.getLength())
+            throw new ArithmeticException("Can not subtract Vectors of length " + this.getLength() + " and " + other.getLength());
+        return mergeCopy(-1.0, other);
+    }
+
+    /**
+     * Adds a scaled SparseVector without changing either of them
+     * @param alpha factor for x
+     * @param x SparseVector that is scaled and added
+     * @return new SparseVector holding this + alpha * x
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public SparseVector plusScaled(double alpha, SparseVector x) throws ArithmeticException {
+        if(this.getLength() != x.getLength())
+            throw new ArithmeticException("Can not add Vectors of length " + this.getLength() + " and " + x.getLength());
+        return mergeCopy(alpha, x);
+    }
+
+    //Element-wise operations. The in-place forms are instance methods, the forms returning a new Vector are static.
+    //Operations on the common entries go through filterBySupport(), which works in place and gallops when one side is much shorter.
+
+    /**
+     * Element-wise (Hadamard) product, this[i] = this[i] * other[i]. Only common entries can stay non-zero.
+     * @param other SparseVector to multiply with
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void multiplyElements(SparseVector other) throws ArithmeticException {
+        checkSameLength(other, "multiply");
+        filterBySupport(SUPPORT_MULTIPLY, other);
+    }
+
+    /**
+     * Element-wise (Hadamard) product without changing either Vector
+     * @return new SparseVector holding a[i] * b[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public static SparseVector hadamard(SparseVector a, SparseVector b) throws ArithmeticException {
+        SparseVector result = a.copy();
+        result.multiplyElements(b);
+        return result;
+    }
+
+    /**
+     * Element-wise minimum, this[i] = min(this[i], other[i]). Missing entries count as 0.0.
+     * @param other SparseVector to compare with
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void minElements(SparseVector other) throws ArithmeticException {
+        checkSameLength(other, "compare");
+        mergeUnionInPlace(MERGE_MIN, other);
+    }
+
+    /**
+     * Element-wise minimum without changing either Vector. Missing entries count as 0.0.
+     * @return new SparseVector holding min(a[i], b[i])
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public static SparseVector min(SparseVector a, SparseVector b) throws ArithmeticException {
+        a.checkSameLength(b, "compare");
+        return a.mergeUnionCopy(MERGE_MIN, b);
+    }
+
+    /**
+     * Element-wise maximum, this[i] = max(this[i], other[i]). Missing entries count as 0.0.
+     * @param other SparseVector to compare with
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void maxElements(SparseVector other) throws ArithmeticException {
+        checkSameLength(other, "compare");
+        mergeUnionInPlace(MERGE_MAX, other);
+    }
+
+    /**
+     * Element-wise maximum without changing either Vector. Missing entries count as 0.0.
+     * @return new SparseVector holding max(a[i], b[i])
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public static SparseVector max(SparseVector a, SparseVector b) throws ArithmeticException {
+        a.checkSameLength(b, "compare");
+        return a.mergeUnionCopy(MERGE_MAX, b);
+    }
+
+    /**
+     * Masks this Vector by the support of other: keeps only the entries whose index is non-zero in other
+     * (intersection of the supports, the Values stay those of this)
+     * @param other SparseVector whose non-zero indices are kept
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void retainAll(SparseVector other) throws ArithmeticException {
+        checkSameLength(other, "mask");
+        filterBySupport(SUPPORT_RETAIN, other);
+    }
+
+    /**
+     * Entries of a whose index is non-zero in b, without changing either Vector
+     * @return new SparseVector holding a masked by the support of b
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public static SparseVector intersection(SparseVector a, SparseVector b) throws ArithmeticException {
+        SparseVector result = a.copy();
+        result.retainAll(b);
+        return result;
+    }
+
+    /**
+     * Removes the entries whose index is non-zero in other (difference of the supports)
+     * @param other SparseVector whose non-zero indices are removed
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void removeAll(SparseVector other) throws ArithmeticException {
+        checkSameLength(other, "mask");
+        filterBySupport(SUPPORT_REMOVE, other);
+    }
+
+    /**
+     * Entries of a whose index is zero in b, without changing either Vector
+     * @return new SparseVector holding a without the support of b
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public static SparseVector difference(SparseVector a, SparseVector b) throws ArithmeticException {
+        SparseVector result = a.copy();
+        result.removeAll(b);
+        return result;
+    }
+
+    /**
+     * Adds the entries of other whose index is zero in this (union of the supports, on common indices this Vector wins)
+     * @param other SparseVector whose entries are added where this has none
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void addAll(SparseVector other) throws ArithmeticException {
+        checkSameLength(other, "merge");
+        mergeUnionInPlace(MERGE_UNION, other);
+    }
+
+    /**
+     * Union of the supports without changing either Vector, on common indices the Value of a is taken
+     * @return new SparseVector holding a[i] if non-zero, else b[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public static SparseVector union(SparseVector a, SparseVector b) throws ArithmeticException {
+        a.checkSameLength(b, "merge");
+        return a.mergeUnionCopy(MERGE_UNION, b);
+    }
+
+    /**
+     * Sums up many Vectors at once. Up to {@value #SUM_LEAF_SIZE} Vectors are merged in a single pass with a heap
+     * (k-way merge, O(total nnz * log k)). More Vectors are split into groups that are merged on all cores and then
+     * added up pairwise. If the Vectors together have at least 1/8 as many entries as the Dimension,
+     * they are added up in a dense scratch array instead, see {@link #sum(Collection, double)}.
+     * @param vectors the Vectors to sum up, at least one and all of the same length
+     * @return new SparseVector holding the sum
+     * @throws ArithmeticException if the Vectors have different Dimensions
+     * @throws IllegalArgumentException if there are no Vectors
+     */
+    public static SparseVector sum(Collection<SparseVector> vectors) throws ArithmeticException, IllegalArgumentException {
+        return sum(vectors, SUM_DENSE_FILL);
+    }
+
+    /**
+     * Same as {@link #sum(Collection)}, with a chosen switch to the dense scratch array
+     * @param vectors the Vectors to sum up, at least one and all of the same length
+     * @param denseFill when total nnz / Dimension reaches this, a dense array of the Dimension is used for adding up.
+     *                  Use a value above the number of Vectors to never go dense.
+     * @return new SparseVector holding the sum
+     * @throws ArithmeticException if the Vectors have different Dimensions
+     * @throws IllegalArgumentException if there are no Vectors
+     */
+    public static SparseVector sum(Collection<SparseVector> vectors, double denseFill) throws ArithmeticException, IllegalArgumentException {
+        return sum(vectors, denseFill, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Same as {@link #sum(Collection, double)}, but more than {@value #SUM_LEAF_SIZE} Vectors are merged in pool
+     * instead of the common pool
+     * @param vectors the Vectors to sum up, at least one and all of the same length
+     * @param denseFill when total nnz / Dimension reaches this, a dense array of the Dimension is used for adding up
+     * @param pool runs the groups of Vectors
+     * @return new SparseVector holding the sum
+     * @throws ArithmeticException if the Vectors have different Dimensions
+     * @throws IllegalArgumentException if there are no Vectors
+     */
+    public static SparseVector sum(Collection<SparseVector> vectors, double denseFill, ForkJoinPool pool) throws ArithmeticException, IllegalArgumentException {
+        if(vectors.isEmpty())
+            throw new IllegalArgumentException("Can not sum up zero Vectors");
+        SparseVector[] all = vectors.toArray(new SparseVector[0]);
+        int length = all[0].getLength();
+        long total = 0;
+        for(SparseVector vector : all){
+            if(vector.getLength() != length)
+                throw new ArithmeticException("Can not add Vectors of length " + length + " and " + vector.getLength());
+            total += vector.size;
+        }
+        if(length > 0 && total >= denseFill * length){
+            double[] scratch = new double[length];
+            for(SparseVector vector : all){
+                DenseKernels.scatterAdd(1.0, vector.indices, vector.values, 0, vector.size, scratch);
+            }
+            return fromArray(scratch);
+        }
+        if(all.length <= SUM_LEAF_SIZE)
+            return mergeAll(all, 0, all.length);
+        return pool.invoke(new SumTask(all, 0, all.length));
+    }
+
+    /**
+     * Starts a lazy linear combination of Vectors, see {@link SparseExpression}.
+     * For example {@code SparseVector.expr(a).plus(2.0, b).minus(c).evaluate()} merges a, b and c in one pass.
+     * @param vector first term
+     * @return SparseExpression holding vector
+     */
+    public static SparseExpression expr(SparseVector vector){
+        return new SparseExpression(vector);
+    }
+
+    /**
+     * Dot product of two SparseVectors. Only indices that are non-zero in both Vectors are visited.
+     * If one Vector has a lot more entries than the other, the shorter one searches its way through the longer one.
+     * @param other the other SparseVector
+     * @return Sum of this[i] * other[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(SparseVector other) throws ArithmeticException {
+        if(this.getLength() != other.getLength())
+            throw new ArithmeticException("Can not multiply Vectors of length " + this.getLength() + " and " + other.getLength());
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.record(VectorMetrics.Operation.DOT, size);
+        return dot(this.indices, this.values, 0, this.size, other.indices, other.values, 0, other.size);
+    }
+
+    /**
+     * Dot product with a normal Vector. Only the non-zero Values of this Vector are visited.
+     * @param array the other Vector
+     * @return Sum of this[i] * array[i]
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double dot(double[] array) throws ArithmeticException {
+        if(this.getLength() != array.length)
+            throw new ArithmeticException("Can not multiply Vectors of length " + this.getLength() + " and " + array.length);
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.record(VectorMetrics.Operation.DOT, size);
+        return DenseKernels.dot(indices, values, 0, size, array);
+    }
+
+    /**
+     * Adds this Vector scaled by alpha onto a normal Vector (array += alpha * this).
+     * Only the entries of array at non-zero indices of this Vector are touched.
+     * @param alpha factor for this Vector
+     * @param array the Vector to add to, changed in place
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public void scatterAdd(double alpha, double[] array) throws ArithmeticException {
+        if(this.getLength() != array.length)
+            throw new ArithmeticException("Can not add Vectors of length " + this.getLength() + " and " + array.length);
+        DenseKernels.scatterAdd(alpha, indices, values, 0, size, array);
+    }
+
+    /**
+     * Sum of the absolute Values
+     * @return L1 norm
+     */
+    public double norm1(){
+        double sum = 0.0;
+        for(int i = 0; i < size; i++){
+            sum += Math.abs(values[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Euclidean length of the Vector. The sum of squares is remembered until the Vector changes.
+     * @return L2 norm
+     */
+    public double norm2(){
+        return Math.sqrt(squaredNorm());
+    }
+
+    /**
+     * Largest absolute Value
+     * @return Infinity norm, 0.0 for a Vector without entries
+     */
+    public double normInf(){
+        double max = 0.0;
+        for(int i = 0; i < size; i++){
+            max = Math.max(max, Math.abs(values[i]));
+        }
+        return max;
+    }
+
+    /**
+     * Cosine of the angle between two SparseVectors
+     * @param other the other SparseVector
+     * @return dot / (norm2 * other.norm2), 0.0 if either Vector has no entries
+     * @throws ArithmeticException if Vectors are of different Dimensions
+     */
+    public double cosine(SparseVector other) throws ArithmeticException {
+        double dot = dot(other);
+        if(dot == 0.0)
+            return 0.0;
+        return dot / Math.sqrt(this.squaredNorm() * other.squaredNorm());
+    }
+
+
+    /**
+     * Calls action for every non-zero entry in ascending index order. Nothing is allocated per entry.
+     * The Vector must not be changed by action.
+     * @param action gets index and Value of each entry
+     */
+    public void forEachNonZero(IntDoubleConsumer action){
+        for(int i = 0; i < size; i++){
+            action.accept(indices[i], values[i]);
+        }
+    }
+
+    /**
+     * Creates a Cursor over the non-zero entries, standing before the first one
+     * @return new Cursor
+     */
+    public Cursor cursor(){
+        return new Cursor(this);
+    }
+
+    /**
+     * Indices of the non-zero entries in ascending order. The stream reads the Vector directly,
+     * so the Vector must not change until the stream is done.
+     * @return IntStream of the indices
+     */
+    public IntStream nonZeroIndices(){
+        return Arrays.stream(indices, 0, size);
+    }
+
+    /**
+     * Non-zero Values in ascending index order. The stream reads the Vector directly,
+     * so the Vector must not change until the stream is done.
+     * @return DoubleStream of the Values
+     */
+    public DoubleStream nonZeroValues(){
+        return Arrays.stream(values, 0, size);
+    }
+
+    /**
+     * Walks over the non-zero entries of a SparseVector in ascending index order:
+     * <pre>
+     * Cursor c = vector.cursor();
+     * while(c.advance()){
+     *     use(c.index(), c.value());
+     * }
+     * </pre>
+     * A Cursor can be moved to another Vector with {@link #reset(SparseVector)}, so one Cursor is enough for any
+     * number of Vectors. The Vector must not be changed while a Cursor walks over it.
+     */
+    public static class Cursor {
+        private SparseVector vector;
+        private int pos;
+
+        Cursor(SparseVector vector){
+            reset(vector);
+        }
+
+        /**
+         * Moves the Cursor to the start of a Vector, before its first entry
+         * @param vector the Vector to walk over next
+         */
+        public void reset(SparseVector vector){
+            this.vector = vector;
+            this.pos = -1;
+        }
+
+        /**
+         * Goes to the next entry
+         * @return false if there is no next entry
+         */
+        public boolean advance(){
+            if(pos < vector.size)
+                pos++;
+            return pos < vector.size;
+        }
+
+        /**
+         * Goes forward to the first entry with an index of at least target. Never goes back.
+         * Large jumps are found by galloping, so skipping over many entries is cheap.
+         * @param target the index to look for
+         * @return false if there is no such entry
+         */
+        public boolean skipTo(int target){
+            //Already there, stay
+            if(pos >= 0 && pos < vector.size && vector.indices[pos] >= target)
+                return true;
+            int from = pos + 1;
+            if(from >= vector.size){
+                pos = vector.size;
+                return false;
+            }
+            int found = gallop(vector.indices, from, vector.size, target);
+            pos = found >= 0 ? found : -found - 1;
+            return pos < vector.size;
+        }
+
+        /**
+         * @return index of the current entry
+         * @throws IllegalStateException if the Cursor is not on an entry
+         */
+        public int index() throws IllegalStateException {
+            checkOnEntry();
+            return vector.indices[pos];
+        }
+
+        /**
+         * @return Value of the current entry
+         * @throws IllegalStateException if the Cursor is not on an entry
+         */
+        public double value() throws IllegalStateException {
+            checkOnEntry();
+            return vector.values[pos];
+        }
+
+        private void checkOnEntry() throws IllegalStateException {
+            if(pos < 0 || pos >= vector.size)
+                throw new IllegalStateException("Cursor is not on an entry");
+        }
+    }
+
+
+    //In-place bulk transforms. Each one is a single pass over the entries that compacts the Arrays as it goes,
+    //they only allocate when the Vector lost most of its entries and the Arrays are shrunk.
+
+    /**
+     * Multiplies every Value by alpha (this = alpha * this). Values that underflow to 0.0 are removed.
+     * @param alpha factor
+     */
+    public void scale(double alpha){
+        if(alpha == 1.0)
+            return;
+        int w = 0;
+        for(int r = 0; r < size; r++){
+            double value = values[r] * alpha;
+            if(value != 0.0){
+                indices[w] = indices[r];
+                values[w] = value;
+                w++;
+            }
+        }
+        truncate(w);
+    }
+
+    /**
+     * Replaces every non-zero Value v by function(v). Entries that become 0.0 are removed.
+     * The function is not applied to the indices that are 0.0, so function(0) should be 0 for the result to make sense.
+     * @param function applied to each non-zero Value, in ascending index order
+     */
+    public void mapValues(DoubleUnaryOperator function){
+        int w = 0;
+        for(int r = 0; r < size; r++){
+            double value = function.applyAsDouble(values[r]);
+            if(value != 0.0){
+                indices[w] = indices[r];
+                values[w] = value;
+                w++;
+            }
+        }
+        truncate(w);
+    }
+
+    /**
+     * Removes every entry with |value| < eps
+     * @param eps smallest absolute Value that is kept
+     */
+    public void pruneBelow(double eps){
+        int w = 0;
+        for(int r = 0; r < size; r++){
+            if(!(Math.abs(values[r]) < eps)){
+                indices[w] = indices[r];
+                values[w] = values[r];
+                w++;
+            }
+        }
+        truncate(w);
+    }
+
+    /**
+     * Keeps the k entries with the largest |value| and removes all others. Of equal Values the lower indices are kept.
+     * The k-th largest |value| is found without sorting or a scratch array: for non-negative doubles the order of the
+     * bit patterns is the order of the Values, so a binary search over the 63 value bits counts at most 63 times, O(nnz).
+     * @param k how many entries to keep, all if k >= getNonZeroCount()
+     */
+    public void retainTopK(int k){
+        if(k >= size)
+            return;
+        if(k <= 0){
+            truncate(0);
+            return;
+        }
+        //Largest threshold T (as bits of |value|) with at least k entries >= T
+        long lo = 0, hi = Long.MAX_VALUE;
+        while(lo < hi){
+            long mid = hi - ((hi - lo) >>> 1);
+            int count = 0;
+            for(int r = 0; r < size; r++){
+                if(absBits(values[r]) >= mid)
+                    count++;
+            }
+            if(count >= k)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        //Everything above T is kept, entries equal to T fill up the rest
+        int above = 0;
+        for(int r = 0; r < size; r++){
+            if(absBits(values[r]) > lo)
+                above++;
+        }
+        int ties = k - above;
+        int w = 0;
+        for(int r = 0; r < size; r++){
+            long bits = absBits(values[r]);
+            if(bits > lo || (bits == lo && ties-- > 0)){
+                indices[w] = indices[r];
+                values[w] = values[r];
+                w++;
+            }
+        }
+        truncate(w);
+    }
+
+    //Bits of |value|, ordered like |value| (NaN sorts above Infinity)
+    private static long absBits(double value){
+        return Double.doubleToRawLongBits(value) & Long.MAX_VALUE;
+    }
+
+    //Sets the size after one of the transforms above and gives memory back when most of the capacity is unused
+    private void truncate(int newSize){
+        size = newSize;
+        squaredNorm = Double.NaN;
+        if(indices.length > DEFAULT_CAPACITY && size < indices.length / 4){
+            indices = size == 0 ? EMPTY_INDICES : Arrays.copyOf(indices, size);
+            values = size == 0 ? EMPTY_VALUES : Arrays.copyOf(values, size);
+        }
+    }
+
+    //Useful other stuff
+    /**
+     * Converts a SparseVector to an array
+     * @return Double[] Array
+     */
+    public double[] toArray(){
+        OperationEvent event = VectorMetrics.ENABLED ? VectorMetrics.start() : null;
+        double[] array = new double[this.length];
+        //Write all Elements to their index
+        DenseKernels.scatter(indices, values, size, array);
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.finish(event, VectorMetrics.Operation.TO_ARRAY, length, size, 0);
+        return array;
+    }
+
+    /**
+     * Takes an Array and converts to SparseVector. Same as {@link #fromArray(double[])}, kept for older callers.
+     * @param array Double Array to convert
+     * @return SparseVector representation of array
+     */
+    public SparseVector toSparseVector(double[] array){
+        return fromArray(array);
+    }
+
+    /**
+     * Takes an Array and converts to SparseVector. The Array is counted once to size the storage exactly
+     * and then copied, no searching or growing is needed.
+     * @param array Double Array to convert
+     * @return SparseVector representation of array
+     */
+    public static SparseVector fromArray(double[] array){
+        OperationEvent event = VectorMetrics.ENABLED ? VectorMetrics.start() : null;
+        int count = 0;
+        for(double value : array){
+            if(value != 0.0)
+                count++;
+        }
+        int[] indices = new int[count];
+        double[] values = new double[count];
+        int w = 0;
+        //Values of 0 are skipped, everything else is already in order
+        for(int i = 0; i < array.length && w < count; i++){
+            if(array[i] != 0.0){
+                indices[w] = i;
+                values[w] = array[i];
+                w++;
+            }
+        }
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.finish(event, VectorMetrics.Operation.FROM_ARRAY, array.length, count, 0);
+        return new SparseVector(array.length, indices, values, count);
+    }
+
+    /**
+     * Builds a SparseVector from (index, value) pairs in any order. The pairs are sorted by index,
+     * Values with the same index are summed up and Values ending up as 0.0 are dropped.
+     * @param length Dimension of the Vector
+     * @param indices where the Values go
+     * @param values the Values, values[i] belongs to indices[i]
+     * @return SparseVector holding the pairs
+     * @throws IllegalArgumentException if the Arrays have different lengths
+     * @throws IndexOutOfBoundsException if an index is negative or not below length
+     */
+    public static SparseVector fromPairs(int length, int[] indices, double[] values) throws IllegalArgumentException, IndexOutOfBoundsException {
+        if(indices.length != values.length)
+            throw new IllegalArgumentException("Got " + indices.length + " indices but " + values.length + " values");
+        Builder builder = new Builder(length, indices.length);
+        for(int i = 0; i < indices.length; i++){
+            builder.append(indices[i], values[i]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects (index, value) pairs and turns them into a SparseVector at once.
+     * Appending in ascending index order costs O(1) per pair and {@link #build()} just hands the Arrays over.
+     * If pairs come in any other order, build sorts them once and sums up Values with the same index.
+     */
+    public static class Builder {
+        private final int length;
+        private int[] indices;
+        private double[] values;
+        private int size;
+        //Stays true as long as every index was larger than the one before
+        private boolean sorted = true;
+
+        /**
+         * @param length Dimension of the Vector that will be built
+         */
+        public Builder(int length) throws NegativeArraySizeException {
+            this(length, DEFAULT_CAPACITY);
+        }
+
+        /**
+         * @param length Dimension of the Vector that will be built
+         * @param capacity How many pairs are expected
+         */
+        public Builder(int length, int capacity) throws NegativeArraySizeException {
+            if(length < 0)
+                throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+            if(capacity < 0)
+                throw new NegativeArraySizeException("Vector cant have a negative capacity");
+            this.length = length;
+            this.indices = new int[capacity];
+            this.values = new double[capacity];
+        }
+
+        /**
+         * Adds a pair. 0.0 Values are skipped.
+         * @param index where the value goes
+         * @param value the Value
+         * @return this Builder
+         * @throws IndexOutOfBoundsException When the Index is Negative or of a Higher Dimensional Vector
+         */
+        public Builder append(int index, double value) throws IndexOutOfBoundsException {
+            if(index < 0 || index >= length)
+                throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + length);
+            if(value == 0.0)
+                return this;
+            if(size > 0 && indices[size - 1] >= index)
+                sorted = false;
+            if(size == indices.length){
+                int capacity = Math.max(size + (size >> 1), DEFAULT_CAPACITY);
+                indices = Arrays.copyOf(indices, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            indices[size] = index;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        /**
+         * Creates the SparseVector. The Builder starts over empty afterwards.
+         * @return SparseVector holding all appended pairs
+         */
+        public SparseVector build(){
+            if(!sorted)
+                sortAndSum();
+            SparseVector result = new SparseVector(length, indices, values, size);
+            indices = EMPTY_INDICES;
+            values = EMPTY_VALUES;
+            size = 0;
+            sorted = true;
+            return result;
+        }
+
+        //Sorts the pairs by index without boxing: index and position are packed into one long, so a
+        //primitive sort orders by index and keeps equal indices in appending order.
+        private void sortAndSum(){
+            long[] keys = new long[size];
+            for(int i = 0; i < size; i++){
+                keys[i] = ((long) indices[i] << 32) | i;
+            }
+            Arrays.sort(keys);
+            int[] sortedIndices = new int[size];
+            double[] sortedValues = new double[size];
+            int w = -1;
+            for(long key : keys){
+                int index = (int) (key >>> 32);
+                double value = values[(int) key];
+                if(w >= 0 && sortedIndices[w] == index){
+                    sortedValues[w] += value;
+                } else {
+                    //Previous entry is finished, drop it if the duplicates cancelled
+                    if(w >= 0 && sortedValues[w] == 0.0)
+                        w--;
+                    w++;
+                    sortedIndices[w] = index;
+                    sortedValues[w] = value;
+                }
+            }
+            if(w >= 0 && sortedValues[w] == 0.0)
+                w--;
+            indices = sortedIndices;
+            values = sortedValues;
+            size = w + 1;
+        }
+    }
+
+    //Up to this many Vectors are merged with one heap, more are split up between threads
+    static final int SUM_LEAF_SIZE = 1024;
+    private static final double SUM_DENSE_FILL = 1.0 / 8.0;
+
+    //k-way merge of vectors[from, to) using a min-heap of Vector numbers, ordered by their current index
+    static SparseVector mergeAll(SparseVector[] vectors, int from, int to){
+        int length = vectors[from].getLength();
+        int k = to - from;
+        long total = 0;
+        for(int v = from; v < to; v++){
+            total += vectors[v].size;
+        }
+        int[] pos = new int[k];
+        //heap[] holds Vector numbers (0..k), key[] their current index
+        int[] heap = new int[k];
+        int[] key = new int[k];
+        int heapSize = 0;
+        for(int v = 0; v < k; v++){
+            if(vectors[from + v].size > 0){
+                key[v] = vectors[from + v].indices[0];
+                heap[heapSize] = v;
+                siftUp(heap, key, heapSize);
+                heapSize++;
+            }
+        }
+        Builder builder = new Builder(length, (int) Math.min(total, length));
+        int current = -1;
+        double sum = 0.0;
+        while(heapSize > 0){
+            int v = heap[0];
+            SparseVector vector = vectors[from + v];
+            int index = key[v];
+            if(index != current){
+                //All Values of the previous index are summed up, 0.0 sums are skipped by append
+                if(current >= 0)
+                    builder.append(current, sum);
+                current = index;
+                sum = 0.0;
+            }
+            sum += vector.values[pos[v]++];
+            //Move on in Vector v, or drop it from the heap when it is done
+            if(pos[v] < vector.size){
+                key[v] = vector.indices[pos[v]];
+            } else {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heap, key, heapSize);
+        }
+        if(current >= 0)
+            builder.append(current, sum);
+        return builder.build();
+    }
+
+    private static void siftUp(int[] heap, int[] key, int at){
+        int v = heap[at];
+        while(at > 0){
+            int parent = (at - 1) >>> 1;
+            if(key[heap[parent]] <= key[v])
+                break;
+            heap[at] = heap[parent];
+            at = parent;
+        }
+        heap[at] = v;
+    }
+
+    private static void siftDown(int[] heap, int[] key, int heapSize){
+        if(heapSize == 0)
+            return;
+        int at = 0;
+        int v = heap[0];
+        while(true){
+            int child = 2 * at + 1;
+            if(child >= heapSize)
+                break;
+            if(child + 1 < heapSize && key[heap[child + 1]] < key[heap[child]])
+                child++;
+            if(key[heap[child]] >= key[v])
+                break;
+            heap[at] = heap[child];
+            at = child;
+        }
+        heap[at] = v;
+    }
+
+    //Splits the Vectors in halves until a group is small enough for one heap merge, then adds the halves together
+    private static class SumTask extends RecursiveTask<SparseVector> {
+        private static final long serialVersionUID = 1L;
+        private final SparseVector[] vectors;
+        private final int from, to;
+
+        SumTask(SparseVector[] vectors, int from, int to){
+            this.vectors = vectors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected SparseVector compute(){
+            if(to - from <= SUM_LEAF_SIZE)
+                return mergeAll(vectors, from, to);
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(vectors, from, mid);
+            left.fork();
+            SparseVector right = new SumTask(vectors, mid, to).compute();
+            SparseVector result = left.join();
+            result.add(right);
+            return result;
+        }
+    }
+
+    //Ratio of entries from which on the shorter Vector gallops through the longer one instead of merging
+    private static final int GALLOP_RATIO = 16;
+
+    //Dot product of the entries [aFrom, aTo) and [bFrom, bTo) of two sorted index/value Arrays.
+    //Also used for the rows of a SparseMatrix, which is why it works on ranges instead of Vectors.
+    static double dot(int[] aIdx, double[] aVal, int aFrom, int aTo, int[] bIdx, double[] bVal, int bFrom, int bTo){
+        int aSize = aTo - aFrom, bSize = bTo - bFrom;
+        if(aSize == 0 || bSize == 0)
+            return 0.0;
+        //The shorter side drives the loop
+        if(aSize > bSize)
+            return dot(bIdx, bVal, bFrom, bTo, aIdx, aVal, aFrom, aTo);
+        double sum = 0.0;
+        if(bSize / aSize < GALLOP_RATIO){
+            //Similar sizes, plain merge of both index Arrays
+            int i = aFrom, j = bFrom;
+            while(i < aTo && j < bTo){
+                int a = aIdx[i], b = bIdx[j];
+                if(a == b)
+                    sum += aVal[i++] * bVal[j++];
+                else if(a < b)
+                    i++;
+                else
+                    j++;
+            }
+            return sum;
+        }
+        int from = bFrom;
+        for(int i = aFrom; i < aTo && from < bTo; i++){
+            int pos = gallop(bIdx, from, bTo, aIdx[i]);
+            if(pos >= 0){
+                sum += aVal[i] * bVal[pos];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+        }
+        return sum;
+    }
+
+    //Exponential search for index in indices[from, to), then a binary search in the found range.
+    //Same contract as Arrays.binarySearch, the cost only depends on how far the index is away from from.
+    static int gallop(int[] indices, int from, int to, int index){
+        int step = 1;
+        int hi = from;
+        while(hi < to && indices[hi] < index){
+            from = hi + 1;
+            hi += step;
+            step <<= 1;
+        }
+        return Arrays.binarySearch(indices, from, Math.min(hi + 1, to), index);
+    }
+
+    //What filterBySupport does with the entries of this whose index other also has
+    private static final int SUPPORT_MULTIPLY = 0;
+    private static final int SUPPORT_RETAIN = 1;
+    private static final int SUPPORT_REMOVE = 2;
+
+    //Multiplies, keeps or drops the entries of this whose index other has, the others are only kept by SUPPORT_REMOVE.
+    //Two pointers over both Vectors, the kept entries are written at w behind the read position r, so nothing
+    //is allocated. If one side has at least GALLOP_RATIO times the entries of the other, the longer one is galloped
+    //through, which costs O(shorter * log(longer / shorter)) steps (plus the copying of kept runs of this).
+    private void filterBySupport(int op, SparseVector other){
+        int[] oIdx = other.indices;
+        boolean gallopThis = size / Math.max(other.size, 1) >= GALLOP_RATIO;
+        boolean gallopOther = other.size / Math.max(size, 1) >= GALLOP_RATIO;
+        int w = 0, r = 0, j = 0;
+        while(r < size && j < other.size){
+            int a = indices[r], b = oIdx[j];
+            if(a < b){
+                //A run of entries only this has
+                int next = r + 1;
+                if(gallopThis){
+                    next = gallop(indices, r, size, b);
+                    next = next >= 0 ? next : -next - 1;
+                }
+                if(op == SUPPORT_REMOVE){
+                    if(w != r){
+                        System.arraycopy(indices, r, indices, w, next - r);
+                        System.arraycopy(values, r, values, w, next - r);
+                    }
+                    w += next - r;
+                }
+                r = next;
+            } else if(a > b){
+                if(gallopOther){
+                    j = gallop(oIdx, j, other.size, a);
+                    j = j >= 0 ? j : -j - 1;
+                } else {
+                    j++;
+                }
+            } else {
+                double value = op == SUPPORT_MULTIPLY ? values[r] * other.values[j] : values[r];
+                if(op != SUPPORT_REMOVE && value != 0.0){
+                    indices[w] = a;
+                    values[w] = value;
+                    w++;
+                }
+                r++;
+                j++;
+            }
+        }
+        //Entries behind the last index of other
+        if(op == SUPPORT_REMOVE && r < size){
+            if(w != r){
+                System.arraycopy(indices, r, indices, w, size - r);
+                System.arraycopy(values, r, values, w, size - r);
+            }
+            w += size - r;
+        }
+        size = w;
+        squaredNorm = Double.NaN;
+    }
+
+    //What mergeUnion puts at an index, with 0.0 for the side that has no entry there
+    private static final int MERGE_UNION = 0;
+    private static final int MERGE_MIN = 1;
+    private static final int MERGE_MAX = 2;
+
+    private static double mergeValue(int op, double a, double b, boolean aPresent){
+        switch(op){
+            case MERGE_MIN:
+                return Math.min(a, b);
+            case MERGE_MAX:
+                return Math.max(a, b);
+            default:
+                return aPresent ? a : b;
+        }
+    }
+
+    //Merges a and b over the union of their indices into out, from the back. out may be a's own Arrays,
+    //because the write position never falls below the read position of a. Returns the size after dropping 0.0s.
+    private static int mergeUnion(int op, int[] aIdx, double[] aVal, int aSize, int[] bIdx, double[] bVal, int bSize,
+                                  int union, int[] outIdx, double[] outVal){
+        int i = aSize - 1, j = bSize - 1, w = union - 1;
+        boolean zeros = false;
+        while(w >= 0){
+            double value;
+            if(j < 0 || (i >= 0 && aIdx[i] > bIdx[j])){
+                outIdx[w] = aIdx[i];
+                value = mergeValue(op, aVal[i--], 0.0, true);
+            } else if(i < 0 || bIdx[j] > aIdx[i]){
+                outIdx[w] = bIdx[j];
+                value = mergeValue(op, 0.0, bVal[j--], false);
+            } else {
+                outIdx[w] = aIdx[i];
+                value = mergeValue(op, aVal[i--], bVal[j--], true);
+            }
+            outVal[w--] = value;
+            zeros |= value == 0.0;
+        }
+        if(!zeros)
+            return union;
+        int size = 0;
+        for(int r = 0; r < union; r++){
+            if(outVal[r] != 0.0){
+                outIdx[size] = outIdx[r];
+                outVal[size] = outVal[r];
+                size++;
+            }
+        }
+        return size;
+    }
+
+    private void mergeUnionInPlace(int op, SparseVector other){
+        int union = unionSize(other, 0, other.size);
+        if(union > indices.length)
+            grow(union);
+        //Read other after growing, other could be this
+        size = mergeUnion(op, indices, values, size, other.indices, other.values, other.size, union, indices, values);
+        squaredNorm = Double.NaN;
+    }
+
+    private SparseVector mergeUnionCopy(int op, SparseVector other){
+        int union = unionSize(other, 0, other.size);
+        int[] rIdx = new int[union];
+        double[] rVal = new double[union];
+        int count = mergeUnion(op, indices, values, size, other.indices, other.values, other.size, union, rIdx, rVal);
+        return new SparseVector(length, rIdx, rVal, count);
+    }
+
+    private void checkSameLength(SparseVector other, String verb) throws ArithmeticException {
+        if(this.getLength() != other.getLength())
+            throw new ArithmeticException("Can not " + verb + " Vectors of length " + this.getLength() + " and " + other.getLength());
+    }
+
+    private double squaredNorm(){
+        if(Double.isNaN(squaredNorm)){
+            double sum = 0.0;
+            for(int i = 0; i < size; i++){
+                sum += values[i] * values[i];
+            }
+            squaredNorm = sum;
+        }
+        return squaredNorm;
+    }
+
+    //Replaces all entries by already sorted Arrays without copying
+    void assign(int[] indices, double[] values, int size){
+        this.indices = indices;
+        this.values = values;
+        this.size = size;
+        this.squaredNorm = Double.NaN;
+    }
+
+    //Helpers for the Array storage
+    private void checkIndex(int index) throws IndexOutOfBoundsException{
+        if(index < 0 || index >= this.getLength())
+            throw new IndexOutOfBoundsException("Index of " + index + " is out of Bounds for length " + this.getLength());
+    }
+
+    //Same contract as Arrays.binarySearch: position if found, else (-(insertion point) - 1)
+    int find(int index){
+        return Arrays.binarySearch(indices, 0, size, index);
+    }
+
+    //Inserts a new entry at pos, moving everything behind it one to the right
+    private void insertAt(int pos, int index, double value){
+        if(size == indices.length)
+            grow(size + 1);
+        int moved = size - pos;
+        if(VectorMetrics.ENABLED)
+            VectorMetrics.recordMoved(moved);
+        if(moved > 0){
+            System.arraycopy(indices, pos, indices, pos + 1, moved);
+            System.arraycopy(values, pos, values, pos + 1, moved);
+        }
+        indices[pos] = index;
+        values[pos] = value;
+        size++;
+    }
+
+    //this += alpha * other in a single pass. The merge runs from the back so no entry of this is overwritten
+    //before it was read, the result needs at most (size of the union of both indices) slots.
+    private void mergeInPlace(double alpha, SparseVector other){
+        mergeInPlace(alpha, other, 0, other.size);
+    }
+
+    //Same as above, but only the entries [from, to) of other are added
+    void mergeInPlace(double alpha, SparseVector other, int from, int to){
+        if(from == to || alpha == 0.0)
+            return;
+        squaredNorm = Double.NaN;
+        int union = unionSize(other, from, to);
+        if(union > indices.length)
+            grow(union);
+        //Read other after growing, other could be this
+        int[] oIdx = other.indices;
+        double[] oVal = other.values;
+        int i = size - 1;
+        int j = to - 1;
+        int w = union - 1;
+        boolean cancelled = false;
+        while(j >= from){
+            if(i >= 0 && indices[i] > oIdx[j]){
+                indices[w] = indices[i];
+                values[w] = values[i];
+                i--;
+            } else if(i >= 0 && indices[i] == oIdx[j]){
+                double sum = values[i] + alpha * oVal[j];
+                cancelled |= sum == 0.0;
+                indices[w] = indices[i];
+                values[w] = sum;
+                i--;
+                j--;
+            } else {
+                double value = alpha * oVal[j];
+                cancelled |= value == 0.0;
+                indices[w] = oIdx[j];
+                values[w] = value;
+                j--;
+            }
+            w--;
+        }
+        //Everything left in this is already at the right place (i == w from here on)
+        size = union;
+        if(cancelled)
+            compact();
+    }
+
+    //Returns this + alpha * other as a new Vector, zeros are dropped while merging
+    private SparseVector mergeCopy(double alpha, SparseVector other){
+        int capacity = Math.min(size + other.size, length);
+        int[] rIdx = new int[capacity];
+        double[] rVal = new double[capacity];
+        int i = 0, j = 0, w = 0;
+        while(i < size || j < other.size){
+            int index;
+            double value;
+            if(j >= other.size || (i < size && indices[i] < other.indices[j])){
+                index = indices[i];
+                value = values[i++];
+            } else if(i >= size || other.indices[j] < indices[i]){
+                index = other.indices[j];
+                value = alpha * other.values[j++];
+            } else {
+                index = indices[i];
+                value = values[i++] + alpha * other.values[j++];
+            }
+            if(value != 0.0){
+                rIdx[w] = index;
+                rVal[w] = value;
+                w++;
+            }
+        }
+        return new SparseVector(length, rIdx, rVal, w);
+    }
+
+    //Number of distinct indices in this and the entries [from, to) of other together
+    private int unionSize(SparseVector other, int from, int to){
+        int i = 0, j = from, count = 0;
+        while(i < size && j < to){
+            int a = indices[i], b = other.indices[j];
+            if(a <= b) i++;
+            if(b <= a) j++;
+            count++;
+        }
+        return count + (size - i) + (to - j);
+    }
+
+    //Drops all entries that became 0.0, keeping the order
+    void compact(){
+        int w = 0;
+        for(int r = 0; r < size; r++){
+            if(values[r] != 0.0){
+                indices[w] = indices[r];
+                values[w] = values[r];
+                w++;
+            }
+        }
+        size = w;
+    }
+
+    //Grows the Arrays by half their size (amortized O(1) appends), but never beyond the Dimension of the Vector
+    void grow(int minCapacity){
+        int capacity = Math.max(indices.length + (indices.length >> 1), DEFAULT_CAPACITY);
+        capacity = Math.max(capacity, minCapacity);
+        capacity = Math.min(capacity, Math.max(length, minCapacity));
+        indices = Arrays.copyOf(indices, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+}
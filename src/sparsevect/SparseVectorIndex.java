@@ -0,0 +1,447 @@
+package sparsevect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index over a collection of SparseVectors for top-k search by dot product or cosine.
+ * For every Dimension that is non-zero in at least one Vector there is a posting list of (vectorId, value),
+ * sorted by vectorId, plus the largest absolute value in the list.
+ *
+ * {@link #topK(SparseVector, int)} uses MaxScore pruning: the query Dimensions are sorted by their upper bound
+ * |query value| * max |value|. Once the k-th best score is known, Dimensions whose upper bounds together can not reach it
+ * are not walked any more, only looked up (by galloping) for Vectors found through the other Dimensions,
+ * and the look ups stop as soon as the rest can not lift the score above the k-th best.
+ * A query therefore only reads the posting lists of its own non-zero Dimensions, and usually only parts of them.
+ * Only Vectors that share at least one non-zero Dimension with the query can be returned.
+ *
+ * Vectors get ascending ids from {@link #add(SparseVector)}. {@link #remove(int)} only marks the id as deleted;
+ * once more than half of the posted entries belong to deleted Vectors, all posting lists are compacted.
+ * Queries may run from many threads at once, add and remove wait until running queries are done.
+ */
+public class SparseVectorIndex {
+    /** score = dot product */
+    public static final int DOT = 0;
+    /** score = cosine similarity */
+    public static final int COSINE = 1;
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private final int length;
+    private final int similarity;
+    //Dimension -> posting list
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int nextId;
+    private int liveCount;
+    //Entries in the posting lists, including those of deleted Vectors
+    private long postedEntries;
+    private long deletedEntries;
+    //Non-zero count per id, needed to know how many entries a remove leaves behind
+    private int[] nonZeroCounts = new int[DEFAULT_CAPACITY];
+
+    /**
+     * Result of a search
+     */
+    public static class Hit {
+        private final int id;
+        private final double score;
+
+        Hit(int id, double score){
+            this.id = id;
+            this.score = score;
+        }
+
+        /**
+         * @return id the Vector got from {@link #add(SparseVector)}
+         */
+        public int id(){
+            return id;
+        }
+
+        /**
+         * @return dot product or cosine with the query
+         */
+        public double score(){
+            return score;
+        }
+    }
+
+    //Ids and Values of one Dimension, ids ascending
+    private static class Postings {
+        int[] ids = new int[DEFAULT_CAPACITY];
+        double[] values = new double[DEFAULT_CAPACITY];
+        int size;
+        //Largest |value|, can be too big after a remove until the next compaction, which is fine for a bound
+        double maxAbs;
+
+        void append(int id, double value){
+            if(size == ids.length){
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            ids[size] = id;
+            values[size] = value;
+            size++;
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+    }
+
+    /**
+     * Creates an empty index scoring by dot product
+     * @param length Dimension of all Vectors in the index
+     */
+    public SparseVectorIndex(int length) throws NegativeArraySizeException {
+        this(length, DOT);
+    }
+
+    /**
+     * Creates an empty index
+     * @param length Dimension of all Vectors in the index
+     * @param similarity {@link #DOT} or {@link #COSINE}
+     * @throws IllegalArgumentException for an unknown similarity
+     */
+    public SparseVectorIndex(int length, int similarity) throws NegativeArraySizeException, IllegalArgumentException {
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        if(similarity != DOT && similarity != COSINE)
+            throw new IllegalArgumentException("Unknown similarity " + similarity);
+        this.length = length;
+        this.similarity = similarity;
+    }
+
+    /**
+     * Adds a Vector to the index. The Values are copied, the Vector can be changed afterwards.
+     * @param vector Vector of length getLength()
+     * @return id of the Vector, ids are given out in ascending order
+     * @throws ArithmeticException if the Vector has a different length
+     */
+    public int add(SparseVector vector) throws ArithmeticException {
+        checkLength(vector);
+        //For cosine the stored Values are divided by the norm, so the dot product with them is already the cosine times |query|
+        double norm = similarity == COSINE ? vector.norm2() : 1.0;
+        lock.writeLock().lock();
+        try {
+            int id = nextId++;
+            if(id == nonZeroCounts.length)
+                nonZeroCounts = Arrays.copyOf(nonZeroCounts, id + (id >> 1) + 1);
+            if(vector.size == 0 || norm == 0.0)
+                //Nothing to post and not counted, a zero Vector is similar to nothing
+                return id;
+            for(int i = 0; i < vector.size; i++){
+                postings.computeIfAbsent(vector.indices[i], d -> new Postings()).append(id, vector.values[i] / norm);
+            }
+            nonZeroCounts[id] = vector.size;
+            postedEntries += vector.size;
+            liveCount++;
+            return id;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a Vector from the index
+     * @param id id from {@link #add(SparseVector)}
+     * @return false if there was no such Vector or it was removed already
+     */
+    public boolean remove(int id){
+        lock.writeLock().lock();
+        try {
+            if(id < 0 || id >= nextId || deleted.get(id))
+                return false;
+            deleted.set(id);
+            //Only Vectors with posted entries were counted by add
+            if(nonZeroCounts[id] > 0)
+                liveCount--;
+            deletedEntries += nonZeroCounts[id];
+            if(deletedEntries * 2 > postedEntries)
+                compact();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of non-zero Vectors in the index
+     */
+    public int size(){
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Dimension of the Vectors in the index
+     * @return Integer of the Dimension
+     */
+    public int getLength(){
+        return length;
+    }
+
+    /**
+     * The k Vectors with the highest score against query, best first. Equal scores are ordered by id.
+     * @param query Vector of length getLength()
+     * @param k how many Vectors to return at most
+     * @return at most k Hits, only Vectors sharing a non-zero Dimension with query
+     * @throws ArithmeticException if query has a different length
+     */
+    public List<Hit> topK(SparseVector query, int k) throws ArithmeticException {
+        checkLength(query);
+        if(k <= 0)
+            return new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            return search(query, k);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs {@link #topK(SparseVector, int)} for many queries in parallel on the common ForkJoinPool
+     * @param queries Vectors of length getLength()
+     * @param k how many Vectors to return per query
+     * @return the results, in the order of queries
+     * @throws ArithmeticException if a query has a different length
+     */
+    public List<List<Hit>> topK(List<SparseVector> queries, int k) throws ArithmeticException {
+        return topK(queries, k, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs {@link #topK(SparseVector, int)} for many queries in parallel
+     * @param queries Vectors of length getLength()
+     * @param k how many Vectors to return per query
+     * @param executor runs the queries
+     * @return the results, in the order of queries
+     * @throws ArithmeticException if a query has a different length
+     */
+    public List<List<Hit>> topK(List<SparseVector> queries, int k, Executor executor) throws ArithmeticException {
+        for(SparseVector query : queries){
+            checkLength(query);
+        }
+        List<CompletableFuture<List<Hit>>> tasks = new ArrayList<>(queries.size());
+        for(SparseVector query : queries){
+            tasks.add(CompletableFuture.supplyAsync(() -> topK(query, k), executor));
+        }
+        List<List<Hit>> results = new ArrayList<>(queries.size());
+        for(CompletableFuture<List<Hit>> task : tasks){
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    //MaxScore search, the read lock is held
+    private List<Hit> search(SparseVector query, int k){
+        //Query Dimensions that have a posting list, sorted by upper bound ascending
+        int m = 0;
+        Postings[] lists = new Postings[query.size];
+        double[] weights = new double[query.size];
+        for(int i = 0; i < query.size; i++){
+            Postings list = postings.get(query.indices[i]);
+            if(list != null){
+                lists[m] = list;
+                weights[m] = query.values[i];
+                m++;
+            }
+        }
+        Integer[] order = new Integer[m];
+        double[] bounds = new double[m];
+        for(int t = 0; t < m; t++){
+            order[t] = t;
+            bounds[t] = Math.abs(weights[t]) * lists[t].maxAbs;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(bounds[a], bounds[b]));
+        int[][] ids = new int[m][];
+        double[][] values = new double[m][];
+        int[] sizes = new int[m];
+        double[] w = new double[m];
+        //cumulative[t] = sum of the bounds of the Dimensions 0..t, the most a Vector found only in those can score
+        double[] cumulative = new double[m];
+        for(int t = 0; t < m; t++){
+            Postings list = lists[order[t]];
+            ids[t] = list.ids;
+            values[t] = list.values;
+            sizes[t] = list.size;
+            w[t] = weights[order[t]];
+            cumulative[t] = (t == 0 ? 0.0 : cumulative[t - 1]) + bounds[order[t]];
+        }
+
+        //There are never more hits than live Vectors, so a huge k does not allocate a huge heap
+        int capacity = Math.min(k, liveCount);
+        if(capacity == 0)
+            return new ArrayList<>();
+        int[] pos = new int[m];
+        TopK top = new TopK(capacity);
+        //Dimensions [firstEssential, m) are walked, the ones below are only looked up
+        int firstEssential = 0;
+        while(firstEssential < m){
+            //Next candidate: smallest id under the cursors of the walked Dimensions
+            int candidate = Integer.MAX_VALUE;
+            for(int t = firstEssential; t < m; t++){
+                if(pos[t] < sizes[t] && ids[t][pos[t]] < candidate)
+                    candidate = ids[t][pos[t]];
+            }
+            if(candidate == Integer.MAX_VALUE)
+                break;
+            double score = 0.0;
+            for(int t = firstEssential; t < m; t++){
+                if(pos[t] < sizes[t] && ids[t][pos[t]] == candidate){
+                    score += w[t] * values[t][pos[t]];
+                    pos[t]++;
+                }
+            }
+            if(deleted.get(candidate))
+                continue;
+            //Look the candidate up in the other Dimensions, biggest bound first, until it can not make it anymore
+            for(int t = firstEssential - 1; t >= 0; t--){
+                if(top.isFull() && score + cumulative[t] <= top.threshold())
+                    break;
+                int found = SparseVector.gallop(ids[t], pos[t], sizes[t], candidate);
+                if(found >= 0){
+                    score += w[t] * values[t][found];
+                    pos[t] = found + 1;
+                } else {
+                    pos[t] = -found - 1;
+                }
+            }
+            if(top.offer(candidate, score)){
+                while(firstEssential < m && cumulative[firstEssential] <= top.threshold())
+                    firstEssential++;
+            }
+        }
+        double queryNorm = similarity == COSINE ? query.norm2() : 1.0;
+        return top.toHits(queryNorm);
+    }
+
+    //Keeps the k best (id, score) pairs in a min-heap, the worst of them at the top
+    private static class TopK {
+        private final int[] ids;
+        private final double[] scores;
+        private int size;
+
+        TopK(int k){
+            ids = new int[k];
+            scores = new double[k];
+        }
+
+        boolean isFull(){
+            return size == ids.length;
+        }
+
+        //Score a new entry has to beat, only meaningful when full
+        double threshold(){
+            return scores[0];
+        }
+
+        //true if the threshold may have changed
+        boolean offer(int id, double score){
+            if(!isFull()){
+                ids[size] = id;
+                scores[size] = score;
+                siftUp(size++);
+                return isFull();
+            }
+            //Candidates come in ascending id order, so on equal scores the one already kept wins
+            if(score <= scores[0])
+                return false;
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+            return true;
+        }
+
+        List<Hit> toHits(double divisor){
+            List<Hit> hits = new ArrayList<>(size);
+            for(int i = 0; i < size; i++){
+                hits.add(new Hit(ids[i], divisor == 0.0 ? 0.0 : scores[i] / divisor));
+            }
+            hits.sort((a, b) -> a.score != b.score ? Double.compare(b.score, a.score) : Integer.compare(a.id, b.id));
+            return hits;
+        }
+
+        //Worse = lower score, on equal scores the higher id
+        private boolean worse(int a, int b){
+            return scores[a] < scores[b] || (scores[a] == scores[b] && ids[a] > ids[b]);
+        }
+
+        private void siftUp(int at){
+            while(at > 0){
+                int parent = (at - 1) >>> 1;
+                if(!worse(at, parent))
+                    return;
+                swap(at, parent);
+                at = parent;
+            }
+        }
+
+        private void siftDown(int at){
+            while(true){
+                int child = 2 * at + 1;
+                if(child >= size)
+                    return;
+                if(child + 1 < size && worse(child + 1, child))
+                    child++;
+                if(!worse(child, at))
+                    return;
+                swap(at, child);
+                at = child;
+            }
+        }
+
+        private void swap(int a, int b){
+            int id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+
+    //Drops the entries of deleted Vectors from all posting lists, the write lock is held
+    private void compact(){
+        postings.values().removeIf(list -> {
+            int w = 0;
+            double maxAbs = 0.0;
+            for(int r = 0; r < list.size; r++){
+                if(!deleted.get(list.ids[r])){
+                    list.ids[w] = list.ids[r];
+                    list.values[w] = list.values[r];
+                    maxAbs = Math.max(maxAbs, Math.abs(list.values[w]));
+                    w++;
+                }
+            }
+            list.size = w;
+            list.maxAbs = maxAbs;
+            //Give back the memory of lists that shrank a lot
+            if(w < list.ids.length / 4){
+                list.ids = Arrays.copyOf(list.ids, Math.max(w, DEFAULT_CAPACITY));
+                list.values = Arrays.copyOf(list.values, Math.max(w, DEFAULT_CAPACITY));
+            }
+            return w == 0;
+        });
+        postedEntries -= deletedEntries;
+        deletedEntries = 0;
+    }
+
+    private void checkLength(SparseVector vector) throws ArithmeticException {
+        if(vector.getLength() != length)
+            throw new ArithmeticException("Can not search Vectors of length " + vector.getLength() + " in an index of length " + length);
+    }
+}
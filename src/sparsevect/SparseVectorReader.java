@@ -0,0 +1,124 @@
+package sparsevect;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads a file written by {@link SparseVectorWriter} by mapping it into memory.
+ * Every Vector is handed out as a {@link MappedSparseVector} that reads straight from the mapped file, nothing is copied.
+ *
+ * A single mapping can not be larger than 2GB, so bigger files are mapped in windows that always start at a Vector.
+ * Windows stay mapped as long as a Vector from them is still referenced, even after {@link #close()}.
+ */
+public class SparseVectorReader implements Iterator<MappedSparseVector>, Closeable {
+    //Size of one mapped window, a single Vector bigger than this gets a window of its own size
+    private static final long WINDOW_SIZE = 1L << 30;
+    //length, nnz, encoding, indexBytes
+    private static final int RECORD_HEADER = 4 + 4 + 1 + 4;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    //Where in the file the current window starts
+    private long windowStart;
+    //Where in the file the next Vector starts
+    private long next;
+
+    /**
+     * Opens a file for reading
+     * @param file the file written by a SparseVectorWriter
+     * @throws IOException if the file can not be read or is not in the expected format
+     */
+    public SparseVectorReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.fileSize = channel.size();
+        if(fileSize < 5){
+            channel.close();
+            throw new IOException("File is too short to be a SparseVector file");
+        }
+        map(0, 5);
+        int magic = window.getInt(0);
+        byte version = window.get(4);
+        if(magic != SparseVectorWriter.MAGIC || version != SparseVectorWriter.VERSION){
+            channel.close();
+            throw new IOException("Not a SparseVector file or unknown version " + version);
+        }
+        this.next = 5;
+    }
+
+    /**
+     * @return true if there is another Vector in the file
+     */
+    @Override
+    public boolean hasNext(){
+        return next < fileSize;
+    }
+
+    /**
+     * Returns a read-only view on the next Vector in the file
+     * @return the next Vector
+     * @throws NoSuchElementException if there are no more Vectors
+     * @throws IllegalStateException if the file ends in the middle of a Vector or the header of the Vector is corrupt
+     */
+    @Override
+    public MappedSparseVector next(){
+        if(!hasNext())
+            throw new NoSuchElementException("No more Vectors in the file");
+        try {
+            ensureMapped(next, RECORD_HEADER);
+            int at = (int) (next - windowStart);
+            int length = window.getInt(at);
+            int nnz = window.getInt(at + 4);
+            byte encoding = window.get(at + 8);
+            int indexBytes = window.getInt(at + 9);
+            checkHeader(length, nnz, encoding, indexBytes);
+            long recordSize = RECORD_HEADER + (long) indexBytes + (long) nnz * (encoding == SparseVectorWriter.FLOAT32 ? Float.BYTES : Double.BYTES);
+            ensureMapped(next, recordSize);
+            at = (int) (next - windowStart);
+            MappedSparseVector vector = new MappedSparseVector(window.slice(at + RECORD_HEADER, (int) recordSize - RECORD_HEADER), length, nnz, encoding, indexBytes);
+            next += recordSize;
+            return vector;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read Vector at " + next + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Closes the file. Vectors that were already read stay usable.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    //Every index takes 1 to 5 varint bytes and there can not be more entries than Dimensions
+    private void checkHeader(int length, int nnz, byte encoding, int indexBytes) throws IOException {
+        if(encoding != SparseVectorWriter.RAW_DOUBLE && encoding != SparseVectorWriter.FLOAT32)
+            throw new IOException("Unknown value encoding " + encoding + " of Vector at " + next);
+        if(length < 0 || nnz < 0 || nnz > length || indexBytes < nnz || indexBytes > 5L * nnz)
+            throw new IOException("Corrupt header of Vector at " + next + ": length " + length + ", nnz " + nnz + ", indexBytes " + indexBytes);
+    }
+
+    //Makes sure [position, position + size) is inside the current window
+    private void ensureMapped(long position, long size) throws IOException {
+        if(position + size > fileSize)
+            throw new IOException("File ends in the middle of a Vector at " + position);
+        if(window != null && position >= windowStart && position + size <= windowStart + window.capacity())
+            return;
+        map(position, Math.max(size, WINDOW_SIZE));
+    }
+
+    private void map(long position, long size) throws IOException {
+        size = Math.min(size, fileSize - position);
+        if(size > Integer.MAX_VALUE)
+            throw new IOException("Vector at " + position + " is too large to be mapped");
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        windowStart = position;
+    }
+}
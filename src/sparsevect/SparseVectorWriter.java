@@ -0,0 +1,127 @@
+package sparsevect;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes SparseVectors one after another in a compact binary format that {@link SparseVectorReader} can map into memory.
+ *
+ * File layout (all numbers big endian):
+ * <pre>
+ * file   = MAGIC (int) VERSION (byte) record*
+ * record = length (int) nnz (int) encoding (byte) indexBytes (int) indices values
+ * </pre>
+ * The indices are stored as differences to the previous index (the first one as is), each written as unsigned varint
+ * (7 bits per byte, highest bit set when more bytes follow). indexBytes is the size of this section.
+ * The values follow as nnz doubles ({@link #RAW_DOUBLE}) or nnz floats ({@link #FLOAT32}, loses precision).
+ * Values that are too small for a float would turn into 0.0, so they are left out of a FLOAT32 record.
+ * Only non-zero Values are written, so the file size depends on nnz and not on the Dimension.
+ */
+public class SparseVectorWriter implements Closeable {
+    static final int MAGIC = 0x53505643; //"SPVC"
+    static final byte VERSION = 1;
+    static final byte RAW_DOUBLE = 0;
+    static final byte FLOAT32 = 1;
+
+    private final DataOutputStream out;
+    private final boolean floatValues;
+    //Reused buffer for the varint section, so its size can be written in front of it
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Creates a writer that keeps the Values as doubles
+     * @param out where the Vectors go, the writer takes care of buffering
+     */
+    public SparseVectorWriter(OutputStream out) throws IOException {
+        this(out, false);
+    }
+
+    /**
+     * @param out where the Vectors go, the writer takes care of buffering
+     * @param floatValues true to write the Values as 4 byte floats instead of 8 byte doubles
+     */
+    public SparseVectorWriter(OutputStream out, boolean floatValues) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.floatValues = floatValues;
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+    }
+
+    /**
+     * Creates (or overwrites) a file and writes to it
+     * @param file the file to write
+     * @param floatValues true to write the Values as 4 byte floats instead of 8 byte doubles
+     */
+    public SparseVectorWriter(Path file, boolean floatValues) throws IOException {
+        this(Files.newOutputStream(file), floatValues);
+    }
+
+    /**
+     * Appends one Vector
+     * @param vector the Vector to write
+     */
+    public void write(SparseVector vector) throws IOException {
+        if(floatValues && hasFloatUnderflow(vector)){
+            //Rounding to float first drops the entries that become 0.0, nnz then matches what is written
+            vector = vector.copy();
+            vector.mapValues(value -> (float) value);
+        }
+        int size = vector.size;
+        int indexBytes = encodeIndices(vector.indices, size);
+        out.writeInt(vector.getLength());
+        out.writeInt(size);
+        out.writeByte(floatValues ? FLOAT32 : RAW_DOUBLE);
+        out.writeInt(indexBytes);
+        out.write(scratch, 0, indexBytes);
+        for(int i = 0; i < size; i++){
+            if(floatValues)
+                out.writeFloat((float) vector.values[i]);
+            else
+                out.writeDouble(vector.values[i]);
+        }
+    }
+
+    /**
+     * Writes everything that is still buffered
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static boolean hasFloatUnderflow(SparseVector vector){
+        for(int i = 0; i < vector.size; i++){
+            if((float) vector.values[i] == 0.0f)
+                return true;
+        }
+        return false;
+    }
+
+    //Delta + varint encodes the indices into scratch and returns the number of bytes used
+    private int encodeIndices(int[] indices, int size){
+        //A varint of an int is at most 5 bytes
+        if(scratch.length < size * 5)
+            scratch = new byte[size * 5];
+        int w = 0;
+        int prev = 0;
+        for(int i = 0; i < size; i++){
+            int delta = indices[i] - prev;
+            prev = indices[i];
+            while((delta & ~0x7F) != 0){
+                scratch[w++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            scratch[w++] = (byte) delta;
+        }
+        return w;
+    }
+}
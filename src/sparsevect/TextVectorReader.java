@@ -0,0 +1,427 @@
+package sparsevect;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Reads labelled SparseVectors from text files, one per line:
+ * <ul>
+ *     <li>{@link #LIBSVM}: {@code label index:value index:value ...}. Indices start at 1 unless zeroBased is set,
+ *     {@code qid:} pairs are skipped and {@code #} starts a comment.</li>
+ *     <li>{@link #CSV}: {@code label,value,value,...}, the i-th value is index i - 1. Values of 0 are not stored.</li>
+ * </ul>
+ * The file is mapped in chunks of about chunkSize Bytes that end at a line break. The chunks are parsed in parallel,
+ * and the rows are handed to the consumer in file order on the calling thread. At most 2 * parallelism chunks are
+ * mapped or parsed at a time, so a slow consumer holds back the reading and files larger than the memory are
+ * processed piece by piece.
+ *
+ * Numbers are parsed straight from the mapped Bytes. Only numbers with more than 15 significant digits or a large
+ * exponent go through {@link Double#parseDouble(String)}. Lines with ascending indices become a SparseVector
+ * without sorting; other lines go through {@link SparseVector#fromPairs(int, int[], double[])}, which sorts them
+ * and sums up duplicates.
+ */
+public class TextVectorReader {
+    public static final int LIBSVM = 0;
+    public static final int CSV = 1;
+    static final int DEFAULT_CHUNK_SIZE = 8 << 20;
+    //Chunks in flight per thread, the second one keeps the threads busy while the consumer works on the first
+    private static final int CHUNKS_PER_THREAD = 2;
+    //Powers of ten that are exact as a double
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for(int i = 1; i < POW10.length; i++){
+            POW10[i] = POW10[i - 1] * 10.0;
+        }
+    }
+
+    private final int length;
+    private final int format;
+    private final boolean zeroBased;
+    private final int chunkSize;
+
+    /**
+     * Gets every row of the file
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+        /**
+         * @param label first number of the line
+         * @param features the other numbers as a SparseVector, owned by the consumer
+         */
+        void accept(double label, SparseVector features);
+    }
+
+    /**
+     * Creates a reader for 1-based LIBSVM or CSV files, with chunks of 8MB
+     * @param length Dimension of the Vectors
+     * @param format {@link #LIBSVM} or {@link #CSV}
+     */
+    public TextVectorReader(int length, int format) throws NegativeArraySizeException, IllegalArgumentException {
+        this(length, format, false, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a reader
+     * @param length Dimension of the Vectors
+     * @param format {@link #LIBSVM} or {@link #CSV}
+     * @param zeroBased true if LIBSVM indices start at 0 instead of 1
+     * @param chunkSize Bytes per chunk, a longer line gets a chunk of its own
+     * @throws IllegalArgumentException for an unknown format or a chunkSize below 1
+     */
+    public TextVectorReader(int length, int format, boolean zeroBased, int chunkSize) throws NegativeArraySizeException, IllegalArgumentException {
+        if(length < 0)
+            throw new NegativeArraySizeException("Vector cant have negative Dimensions");
+        if(format != LIBSVM && format != CSV)
+            throw new IllegalArgumentException("Unknown format " + format);
+        if(chunkSize < 1)
+            throw new IllegalArgumentException("Chunk size has to be positive, got " + chunkSize);
+        this.length = length;
+        this.format = format;
+        this.zeroBased = zeroBased;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the whole file, parsing on the common ForkJoinPool
+     * @param file text file to read
+     * @param consumer gets every row, in file order, on the calling thread
+     * @return number of rows
+     * @throws IOException if the file can not be read or a line is malformed
+     */
+    public long read(Path file, RowConsumer consumer) throws IOException {
+        return read(file, consumer, ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * Reads the whole file
+     * @param file text file to read
+     * @param consumer gets every row, in file order, on the calling thread
+     * @param executor parses the chunks
+     * @param parallelism how many threads the executor has, decides how many chunks are in flight
+     * @return number of rows
+     * @throws IOException if the file can not be read or a line is malformed
+     */
+    public long read(Path file, RowConsumer consumer, Executor executor, int parallelism) throws IOException {
+        int maxInFlight = Math.max(parallelism, 1) * CHUNKS_PER_THREAD;
+        ArrayDeque<FutureTask<Rows>> pending = new ArrayDeque<>();
+        long rows = 0;
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            long fileSize = channel.size();
+            long start = 0;
+            while(start < fileSize || !pending.isEmpty()){
+                //Fill up the pipeline, then wait for the oldest chunk
+                while(start < fileSize && pending.size() < maxInFlight){
+                    ByteBuffer chunk = nextChunk(channel, start, fileSize);
+                    long offset = start;
+                    FutureTask<Rows> task = new FutureTask<>(() -> parse(chunk, offset));
+                    executor.execute(task);
+                    pending.add(task);
+                    start += chunk.limit();
+                }
+                Rows chunkRows = await(pending.poll());
+                for(int r = 0; r < chunkRows.size; r++){
+                    consumer.accept(chunkRows.labels[r], chunkRows.vectors[r]);
+                    //Let the consumer own the Vector alone, so it can be collected once the consumer is done with it
+                    chunkRows.vectors[r] = null;
+                }
+                rows += chunkRows.size;
+            }
+        } finally {
+            for(FutureTask<Rows> task : pending){
+                task.cancel(false);
+            }
+        }
+        return rows;
+    }
+
+    //Maps [start, end) where end is just behind the last line break within chunkSize Bytes
+    private ByteBuffer nextChunk(FileChannel channel, long start, long fileSize) throws IOException {
+        long size = Math.min(chunkSize, fileSize - start);
+        while(true){
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+            if(start + size == fileSize)
+                return mapped;
+            for(int i = (int) size - 1; i >= 0; i--){
+                if(mapped.get(i) == '\n')
+                    return mapped.limit(i + 1);
+            }
+            //No line break at all, the line is longer than the chunk
+            if(size >= Integer.MAX_VALUE)
+                throw new IOException("Line at byte " + start + " is longer than 2GB");
+            size = Math.min(Math.min(size * 2, Integer.MAX_VALUE), fileSize - start);
+        }
+    }
+
+    private static Rows await(FutureTask<Rows> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading", e);
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            if(e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    //Parsed rows of one chunk
+    private static class Rows {
+        double[] labels = new double[64];
+        SparseVector[] vectors = new SparseVector[64];
+        int size;
+
+        void add(double label, SparseVector vector){
+            if(size == labels.length){
+                labels = Arrays.copyOf(labels, size * 2);
+                vectors = Arrays.copyOf(vectors, size * 2);
+            }
+            labels[size] = label;
+            vectors[size] = vector;
+            size++;
+        }
+    }
+
+    //Parses every line of a chunk, offset is where the chunk starts in the file (for error messages)
+    Rows parse(ByteBuffer chunk, long offset) throws IOException {
+        Rows rows = new Rows();
+        Line line = new Line(chunk, offset);
+        int pos = 0;
+        int limit = chunk.limit();
+        while(pos < limit){
+            int end = pos;
+            while(end < limit && chunk.get(end) != '\n')
+                end++;
+            int lineEnd = end > pos && chunk.get(end - 1) == '\r' ? end - 1 : end;
+            if(format == LIBSVM)
+                line.parseLibSvm(pos, lineEnd, rows);
+            else
+                line.parseCsv(pos, lineEnd, rows);
+            pos = end + 1;
+        }
+        return rows;
+    }
+
+    //Scratch space for the entries of one line, reused for all lines of a chunk
+    private class Line {
+        private final ByteBuffer buffer;
+        private final long offset;
+        private int[] indices = new int[64];
+        private double[] values = new double[64];
+        private int size;
+        private boolean sorted;
+
+        Line(ByteBuffer buffer, long offset){
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        void parseLibSvm(int from, int to, Rows rows) throws IOException {
+            int p = skipBlanks(from, to);
+            if(p == to || buffer.get(p) == '#')
+                //Empty or comment line
+                return;
+            int end = tokenEnd(p, to);
+            double label = parseNumber(p, end);
+            clear();
+            p = skipBlanks(end, to);
+            while(p < to && buffer.get(p) != '#'){
+                end = tokenEnd(p, to);
+                int colon = p;
+                while(colon < end && buffer.get(colon) != ':')
+                    colon++;
+                if(colon == end)
+                    throw error("Expected index:value", p);
+                if(!isQid(p, colon)){
+                    int index = parseIndex(p, colon) - (zeroBased ? 0 : 1);
+                    if(index < 0 || index >= length)
+                        throw error("Index " + index + " is out of Bounds for length " + length, p);
+                    append(index, parseNumber(colon + 1, end));
+                }
+                p = skipBlanks(end, to);
+            }
+            rows.add(label, build());
+        }
+
+        void parseCsv(int from, int to, Rows rows) throws IOException {
+            if(skipBlanks(from, to) == to)
+                return;
+            int end = fieldEnd(from, to);
+            double label = parseNumber(trimStart(from, end), trimEnd(from, end));
+            clear();
+            int index = 0;
+            while(end < to){
+                int p = end + 1;
+                end = fieldEnd(p, to);
+                if(index >= length)
+                    throw error("More than " + length + " values", p);
+                append(index++, parseNumber(trimStart(p, end), trimEnd(p, end)));
+            }
+            rows.add(label, build());
+        }
+
+        private void clear(){
+            size = 0;
+            sorted = true;
+        }
+
+        private void append(int index, double value){
+            if(value == 0.0)
+                return;
+            if(size == indices.length){
+                indices = Arrays.copyOf(indices, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            sorted &= size == 0 || indices[size - 1] < index;
+            indices[size] = index;
+            values[size] = value;
+            size++;
+        }
+
+        private SparseVector build(){
+            int[] rIdx = Arrays.copyOf(indices, size);
+            double[] rVal = Arrays.copyOf(values, size);
+            //Ascending lines (the usual case) are taken over as they are
+            return sorted ? new SparseVector(length, rIdx, rVal, size) : SparseVector.fromPairs(length, rIdx, rVal);
+        }
+
+        private boolean isQid(int from, int colon){
+            return colon - from == 3 && buffer.get(from) == 'q' && buffer.get(from + 1) == 'i' && buffer.get(from + 2) == 'd';
+        }
+
+        private int parseIndex(int from, int to) throws IOException {
+            if(from == to)
+                throw error("Missing index", from);
+            long index = 0;
+            for(int p = from; p < to; p++){
+                int digit = buffer.get(p) - '0';
+                if(digit < 0 || digit > 9 || index > Integer.MAX_VALUE)
+                    throw error("Bad index", from);
+                index = index * 10 + digit;
+            }
+            if(index > Integer.MAX_VALUE)
+                throw error("Bad index", from);
+            return (int) index;
+        }
+
+        //Decimal number like -1.25e-3 without creating a String. Numbers that do not fit the exact fast path
+        //(more than 15 significant digits or an exponent beyond 10^22) go through Double.parseDouble.
+        private double parseNumber(int from, int to) throws IOException {
+            int p = from;
+            boolean negative = false;
+            if(p < to && (buffer.get(p) == '-' || buffer.get(p) == '+'))
+                negative = buffer.get(p++) == '-';
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean any = false;
+            while(p < to && isDigit(buffer.get(p))){
+                any = true;
+                int digit = buffer.get(p++) - '0';
+                if(mantissa != 0 || digit != 0){
+                    if(digits < 18)
+                        mantissa = mantissa * 10 + digit;
+                    else
+                        exponent++;
+                    digits++;
+                }
+            }
+            if(p < to && buffer.get(p) == '.'){
+                p++;
+                while(p < to && isDigit(buffer.get(p))){
+                    any = true;
+                    int digit = buffer.get(p++) - '0';
+                    if(mantissa != 0 || digit != 0){
+                        if(digits < 18){
+                            mantissa = mantissa * 10 + digit;
+                            exponent--;
+                        }
+                        digits++;
+                    } else {
+                        exponent--;
+                    }
+                }
+            }
+            if(any && p < to && (buffer.get(p) == 'e' || buffer.get(p) == 'E')){
+                p++;
+                boolean negativeExponent = false;
+                if(p < to && (buffer.get(p) == '-' || buffer.get(p) == '+'))
+                    negativeExponent = buffer.get(p++) == '-';
+                int e = 0;
+                int start = p;
+                while(p < to && isDigit(buffer.get(p))){
+                    e = Math.min(e * 10 + buffer.get(p++) - '0', 100000);
+                }
+                if(p == start)
+                    any = false;
+                exponent += negativeExponent ? -e : e;
+            }
+            if(any && p == to){
+                if(mantissa == 0)
+                    return negative ? -0.0 : 0.0;
+                if(digits <= 15 && exponent >= -22 && exponent <= 22){
+                    //Both the mantissa and the power of ten are exact, so one rounding gives the correct result
+                    double value = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+                    return negative ? -value : value;
+                }
+            }
+            //Rare: long numbers, huge exponents, NaN/Infinity or garbage
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            try {
+                return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw error("Bad number '" + new String(bytes, StandardCharsets.US_ASCII) + "'", from);
+            }
+        }
+
+        private int skipBlanks(int from, int to){
+            while(from < to && (buffer.get(from) == ' ' || buffer.get(from) == '\t'))
+                from++;
+            return from;
+        }
+
+        private int tokenEnd(int from, int to){
+            while(from < to && buffer.get(from) != ' ' && buffer.get(from) != '\t')
+                from++;
+            return from;
+        }
+
+        private int fieldEnd(int from, int to){
+            while(from < to && buffer.get(from) != ',')
+                from++;
+            return from;
+        }
+
+        private int trimStart(int from, int to){
+            return skipBlanks(from, to);
+        }
+
+        private int trimEnd(int from, int to){
+            while(to > from && (buffer.get(to - 1) == ' ' || buffer.get(to - 1) == '\t'))
+                to--;
+            return to;
+        }
+
+        private IOException error(String message, int at){
+            return new IOException(message + " at byte " + (offset + at));
+        }
+    }
+
+    private static boolean isDigit(byte b){
+        return b >= '0' && b <= '9';
+    }
+}
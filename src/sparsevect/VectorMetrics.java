@@ -0,0 +1,239 @@
+package sparsevect;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation of {@link SparseVector}, switched on by starting the JVM with {@code -Dsparsevector.metrics=true}.
+ * <ul>
+ *     <li>a counter per {@link Operation}</li>
+ *     <li>a histogram of the non-zero count of the Vector at every counted operation, to see Vectors growing dense</li>
+ *     <li>a histogram of the entries moved by setElement/removeElement. With the sorted Arrays this replaced the walk
+ *     through the old linked List: the search is O(log nnz), inserting or removing in the middle moves O(nnz) entries.</li>
+ *     <li>a JDK Flight Recorder event ({@code sparsevect.Operation}) for add, subtract, axpy, toArray and fromArray/toSparseVector.
+ *     They are only recorded if a recording has the event enabled.</li>
+ * </ul>
+ * Histograms have {@value #BUCKETS} buckets: bucket 0 counts the 0s, bucket k the values in [2^(k-1), 2^k).
+ *
+ * The values can be read through JMX after {@link #registerMBean()} or pushed into any metrics library with {@link #report(MetricsSink)}.
+ *
+ * {@link #ENABLED} is a static final flag, so when it is false the JIT removes the instrumentation from the hot paths completely.
+ */
+public final class VectorMetrics {
+    /** true when the JVM was started with {@code -Dsparsevector.metrics=true} */
+    public static final boolean ENABLED = Boolean.getBoolean("sparsevector.metrics");
+    public static final int BUCKETS = 32;
+    public static final String OBJECT_NAME = "sparsevect:type=VectorMetrics";
+
+    /**
+     * Counted operations. ADD also counts subtract and axpy, FROM_ARRAY also counts toSparseVector.
+     */
+    public enum Operation {
+        GET, SET, REMOVE, ADD, DOT, TO_ARRAY, FROM_ARRAY
+    }
+
+    /**
+     * Receives the values on {@link #report(MetricsSink)}, for example to forward them to a metrics library.
+     */
+    public interface MetricsSink {
+        /**
+         * @param name for example {@code sparsevector.ops.get}
+         * @param value total since start or the last {@link #reset()}
+         */
+        void counter(String name, long value);
+
+        /**
+         * @param name for example {@code sparsevector.nnz}
+         * @param buckets {@value #BUCKETS} bucket counts, see {@link VectorMetrics}
+         */
+        void histogram(String name, long[] buckets);
+    }
+
+    /**
+     * JMX view of the metrics, registered by {@link #registerMBean()}
+     */
+    public interface VectorMetricsMXBean {
+        long getGetCount();
+        long getSetCount();
+        long getRemoveCount();
+        long getAddCount();
+        long getDotCount();
+        long getToArrayCount();
+        long getFromArrayCount();
+        long[] getNonZeroCountHistogram();
+        long[] getMovedEntriesHistogram();
+        void reset();
+    }
+
+    private static final LongAdder[] COUNTS = adders(Operation.values().length);
+    private static final LongAdder[] NON_ZERO = adders(BUCKETS);
+    private static final LongAdder[] MOVED = adders(BUCKETS);
+
+    private VectorMetrics() {
+    }
+
+    /**
+     * Counter of one operation
+     * @param operation which one
+     * @return how often it ran since start or the last {@link #reset()}
+     */
+    public static long count(Operation operation){
+        return COUNTS[operation.ordinal()].sum();
+    }
+
+    /**
+     * @return bucket counts of the non-zero count seen at the counted operations
+     */
+    public static long[] nonZeroCountHistogram(){
+        return sums(NON_ZERO);
+    }
+
+    /**
+     * @return bucket counts of the entries moved by a single setElement/removeElement
+     */
+    public static long[] movedEntriesHistogram(){
+        return sums(MOVED);
+    }
+
+    /**
+     * Sets all counters and histograms back to 0
+     */
+    public static void reset(){
+        for(LongAdder[] adders : new LongAdder[][]{COUNTS, NON_ZERO, MOVED}){
+            for(LongAdder adder : adders){
+                adder.reset();
+            }
+        }
+    }
+
+    /**
+     * Hands the current values to sink. Counters are named {@code sparsevector.ops.<operation>},
+     * the histograms {@code sparsevector.nnz} and {@code sparsevector.moved}.
+     * @param sink where the values go
+     */
+    public static void report(MetricsSink sink){
+        for(Operation operation : Operation.values()){
+            sink.counter("sparsevector.ops." + operation.name().toLowerCase(), count(operation));
+        }
+        sink.histogram("sparsevector.nnz", nonZeroCountHistogram());
+        sink.histogram("sparsevector.moved", movedEntriesHistogram());
+    }
+
+    /**
+     * Registers the {@link VectorMetricsMXBean} with the platform MBeanServer as {@value #OBJECT_NAME}.
+     * Registering again does nothing.
+     * @throws IllegalStateException if JMX refuses the registration
+     */
+    public static void registerMBean() throws IllegalStateException {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            //Already there
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register " + OBJECT_NAME, e);
+        }
+    }
+
+    //Hooks for SparseVector, callers check ENABLED first
+
+    //Counts a cheap operation on a Vector with nnz entries
+    static void record(Operation operation, int nnz){
+        COUNTS[operation.ordinal()].increment();
+        NON_ZERO[bucket(nnz)].increment();
+    }
+
+    //Entries moved by one insert or remove
+    static void recordMoved(int moved){
+        MOVED[bucket(moved)].increment();
+    }
+
+    //Starts the JFR event of an expensive operation, null if no recording wants it
+    static OperationEvent start(){
+        OperationEvent event = new OperationEvent();
+        if(!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    //Counts an expensive operation and commits its event (if started)
+    static void finish(OperationEvent event, Operation operation, int length, int nnz, int otherNnz){
+        record(operation, nnz);
+        if(event == null)
+            return;
+        event.end();
+        if(event.shouldCommit()){
+            event.operation = operation.name();
+            event.length = length;
+            event.nonZeroCount = nnz;
+            event.otherNonZeroCount = otherNnz;
+            event.commit();
+        }
+    }
+
+    //0 for 0, otherwise 1 + floor(log2(value))
+    static int bucket(int value){
+        return value <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private static LongAdder[] adders(int count){
+        LongAdder[] adders = new LongAdder[count];
+        for(int i = 0; i < count; i++){
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static long[] sums(LongAdder[] adders){
+        long[] sums = new long[adders.length];
+        for(int i = 0; i < adders.length; i++){
+            sums[i] = adders[i].sum();
+        }
+        return sums;
+    }
+
+    private static class MXBean implements VectorMetricsMXBean {
+        public long getGetCount(){
+            return count(Operation.GET);
+        }
+
+        public long getSetCount(){
+            return count(Operation.SET);
+        }
+
+        public long getRemoveCount(){
+            return count(Operation.REMOVE);
+        }
+
+        public long getAddCount(){
+            return count(Operation.ADD);
+        }
+
+        public long getDotCount(){
+            return count(Operation.DOT);
+        }
+
+        public long getToArrayCount(){
+            return count(Operation.TO_ARRAY);
+        }
+
+        public long getFromArrayCount(){
+            return count(Operation.FROM_ARRAY);
+        }
+
+        public long[] getNonZeroCountHistogram(){
+            return nonZeroCountHistogram();
+        }
+
+        public long[] getMovedEntriesHistogram(){
+            return movedEntriesHistogram();
+        }
+
+        public void reset(){
+            VectorMetrics.reset();
+        }
+    }
+}
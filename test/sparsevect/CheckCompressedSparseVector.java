@@ -0,0 +1,120 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.util.Random;
+
+
+class CheckCompressedSparseVector {
+
+    private static SparseVector randomVector(int length, int entries, long seed){
+        Random random = new Random(seed);
+        SparseVector vector = new SparseVector(length);
+        for(int e = 0; e < entries; e++){
+            vector.setElement(random.nextInt(length), random.nextGaussian());
+        }
+        return vector;
+    }
+
+    //Indices have to survive exactly, Values within the documented error of each encoding
+    @org.junit.jupiter.api.Test
+    void roundTripWithinPrecision() {
+        SparseVector A = randomVector(100000, 1000, 1);
+        double largest = A.normInf();
+        double[] relative = {Math.pow(2, -24), Math.pow(2, -8)};
+        for(int encoding : new int[]{CompressedSparseVector.FLOAT32, CompressedSparseVector.BFLOAT16, CompressedSparseVector.INT8}){
+            CompressedSparseVector compressed = CompressedSparseVector.compress(A, encoding);
+            //INT8 drops the Values below scale / 2, they are checked against 0.0 below
+            if(encoding != CompressedSparseVector.INT8)
+                Assertions.assertEquals(A.getNonZeroCount(), compressed.getNonZeroCount(), "Entries got lost");
+            Assertions.assertEquals(compressed.toSparseVector().getNonZeroCount(), compressed.getNonZeroCount(), "A stored entry decodes to 0.0");
+            SparseVector.Cursor cursor = A.cursor();
+            while(cursor.advance()){
+                double expected = cursor.value();
+                double allowed = encoding == CompressedSparseVector.INT8 ? largest / 254.0 : Math.abs(expected) * relative[encoding];
+                Assertions.assertEquals(expected, compressed.getElement(cursor.index()), allowed * 1.0001, "Value at " + cursor.index() + " is too far off");
+            }
+        }
+    }
+
+    //Looking up indices that are not there, in front of, between and behind the blocks
+    @org.junit.jupiter.api.Test
+    void getElementAroundBlocks() {
+        SparseVector A = new SparseVector(10000);
+        for(int i = 5; i < 10000; i += 7){
+            A.setElement(i, 1.0 + i % 4);
+        }
+        CompressedSparseVector compressed = CompressedSparseVector.compress(A, CompressedSparseVector.FLOAT32);
+        for(int i = 0; i < 10000; i++){
+            Assertions.assertEquals(A.getElement(i), compressed.getElement(i), "Wrong Value at " + i);
+        }
+        Assertions.assertArrayEquals(A.toArray(), compressed.toArray(), "Arrays Are different");
+        Assertions.assertTrue(compressed.toSparseVector().equals(A), "Decoded Vector is different");
+    }
+
+    //dot with a short and a long Vector takes different paths, both have to match the uncompressed result
+    @org.junit.jupiter.api.Test
+    void dotAndPlus() {
+        SparseVector A = new SparseVector(50000);
+        for(int i = 0; i < 50000; i += 3){
+            A.setElement(i, i % 5 - 2.0);
+        }
+        SparseVector Short = SparseVector.fromPairs(50000, new int[]{3, 300, 49998}, new double[]{1.0, 2.0, 3.0});
+        SparseVector Long = randomVector(50000, 20000, 2);
+        CompressedSparseVector compressed = CompressedSparseVector.compress(A, CompressedSparseVector.FLOAT32);
+        Assertions.assertEquals(A.dot(Short), compressed.dot(Short), "Wrong dot product with a short Vector");
+        Assertions.assertEquals(A.dot(Long), compressed.dot(Long), 1e-9, "Wrong dot product with a long Vector");
+        Assertions.assertEquals(A.dot(Long.toArray()), compressed.dot(Long.toArray()), 1e-9, "Wrong dot product with an array");
+        Assertions.assertTrue(compressed.plus(Short).equals(A.plus(Short)), "Wrong sum");
+    }
+
+    //Values that round to 0.0 are not stored, also across block boundaries, and are not counted
+    @org.junit.jupiter.api.Test
+    void underflowIsDropped() {
+        SparseVector A = new SparseVector(1000);
+        double[] Expected = new double[1000];
+        for(int i = 0; i < 1000; i++){
+            A.setElement(i, i % 2 == 0 ? 1.0 + i : 1e-50);
+            Expected[i] = i % 2 == 0 ? 1.0 + i : 0.0;
+        }
+        for(int encoding : new int[]{CompressedSparseVector.FLOAT32, CompressedSparseVector.BFLOAT16}){
+            CompressedSparseVector compressed = CompressedSparseVector.compress(A, encoding);
+            Assertions.assertEquals(500, compressed.getNonZeroCount(), "Underflows are counted");
+            Assertions.assertEquals(500, compressed.toSparseVector().getNonZeroCount(), "Underflows are stored");
+            Assertions.assertEquals(0.0, compressed.getElement(301), "Underflow is not 0.0");
+            if(encoding == CompressedSparseVector.FLOAT32){
+                Assertions.assertArrayEquals(Expected, compressed.toArray(), "Arrays Are different");
+                for(int i = 0; i < 1000; i++){
+                    Assertions.assertEquals(Expected[i], compressed.getElement(i), "Wrong Value at " + i);
+                }
+            }
+        }
+        CompressedSparseVector quantized = CompressedSparseVector.compress(SparseVector.fromArray(new double[]{100.0, 0.1, 3.0}), CompressedSparseVector.INT8);
+        Assertions.assertEquals(2, quantized.getNonZeroCount(), "Value below scale / 2 is counted");
+        Assertions.assertEquals(0.0, quantized.getElement(1), "Value below scale / 2 is not 0.0");
+    }
+
+    //plus merges while decoding, the sum has no cancelled entries and no unused room
+    @org.junit.jupiter.api.Test
+    void plusMergesDecodedEntries() {
+        SparseVector A = new SparseVector(50000);
+        for(int i = 0; i < 50000; i += 3){
+            A.setElement(i, i % 5 - 2.0);
+        }
+        CompressedSparseVector compressed = CompressedSparseVector.compress(A, CompressedSparseVector.FLOAT32);
+        SparseVector Long = randomVector(50000, 20000, 3);
+        SparseVector sum = compressed.plus(Long);
+        Assertions.assertTrue(sum.equals(A.plus(Long)), "Wrong sum");
+        Assertions.assertEquals(sum.getNonZeroCount(), sum.indices.length, "Sum Arrays have the wrong size");
+        SparseVector negated = A.copy();
+        negated.scale(-1.0);
+        Assertions.assertEquals(0, compressed.plus(negated).getNonZeroCount(), "Cancelled Values were kept");
+        Assertions.assertTrue(CompressedSparseVector.compress(new SparseVector(50000), CompressedSparseVector.INT8).plus(Long).equals(Long), "Adding to an empty Vector is different");
+        Assertions.assertTrue(compressed.plus(new SparseVector(50000)).equals(A), "Adding an empty Vector is different");
+    }
+
+    @org.junit.jupiter.api.Test
+    void unknownEncoding() {
+        Exception exception = Assertions.assertThrows(IllegalArgumentException.class, () -> CompressedSparseVector.compress(new SparseVector(3), 7), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Unknown encoding 7"));
+    }
+}
@@ -0,0 +1,84 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.util.ArrayList;
+import java.util.List;
+
+
+class CheckConcurrentSparseVector {
+
+    //Many threads adding to the same indices must not lose any update
+    @org.junit.jupiter.api.Test
+    void concurrentAddTo() throws InterruptedException {
+        ConcurrentSparseVector vector = new ConcurrentSparseVector(1000, 8);
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 8; t++){
+            Thread thread = new Thread(() -> {
+                for(int round = 0; round < 100; round++){
+                    for(int i = 0; i < 1000; i += 7){
+                        vector.addTo(i, 1.0);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        SparseVector Result = vector.snapshot();
+        for(int i = 0; i < 1000; i++){
+            Assertions.assertEquals(i % 7 == 0 ? 800.0 : 0.0, Result.getElement(i), "Lost updates at index " + i);
+        }
+        Assertions.assertEquals(143, Result.getNonZeroCount(), "Wrong number of non-zero Values");
+    }
+
+    //Adding whole Vectors from many threads, the stripes are applied one by one
+    @org.junit.jupiter.api.Test
+    void concurrentAddVectors() throws InterruptedException {
+        ConcurrentSparseVector vector = new ConcurrentSparseVector(100, 7);
+        double[] A = new double[100];
+        for(int i = 0; i < 100; i += 3){
+            A[i] = i + 1.0;
+        }
+        SparseVector newA = SparseVector.fromArray(A);
+        List<Thread> threads = new ArrayList<>();
+        for(int t = 0; t < 4; t++){
+            Thread thread = new Thread(() -> {
+                for(int round = 0; round < 50; round++){
+                    vector.add(newA);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for(Thread thread : threads){
+            thread.join();
+        }
+        double[] Expected = new double[100];
+        for(int i = 0; i < 100; i++){
+            Expected[i] = 200.0 * A[i];
+        }
+        Assertions.assertArrayEquals(Expected, vector.snapshot().toArray(), "Arrays Are different");
+    }
+
+    //Values adding up to 0.0 are removed and the snapshot does not change with the Vector
+    @org.junit.jupiter.api.Test
+    void snapshotIsCopy() {
+        ConcurrentSparseVector vector = new ConcurrentSparseVector(10, 3);
+        vector.addTo(9, 2.0);
+        vector.setElement(0, 1.0);
+        SparseVector snapshot = vector.snapshot();
+        vector.addTo(9, -2.0);
+        Assertions.assertEquals(2.0, snapshot.getElement(9), "Snapshot changed with the Vector");
+        Assertions.assertEquals(0.0, vector.getElement(9), "Value was not cancelled");
+        Assertions.assertEquals(1, vector.snapshot().getNonZeroCount(), "Cancelled Value was kept");
+    }
+
+    @org.junit.jupiter.api.Test
+    void addToIndexOutOfBounds() {
+        ConcurrentSparseVector vector = new ConcurrentSparseVector(1);
+        Exception exception = Assertions.assertThrows(IndexOutOfBoundsException.class, () -> vector.addTo(2, 1.0), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Index of 2 is out of Bounds for length 1"));
+    }
+}
@@ -0,0 +1,127 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.util.Random;
+
+
+class CheckHashSparseVector {
+
+    //Random sets, adds and removes have to end up the same as on a normal array, also after the table grew
+    @org.junit.jupiter.api.Test
+    void randomOperationsMatchArray() {
+        Random random = new Random(7);
+        HashSparseVector vector = new HashSparseVector(500);
+        double[] Expected = new double[500];
+        for(int step = 0; step < 20000; step++){
+            int index = random.nextInt(500);
+            int operation = random.nextInt(3);
+            if(operation == 0){
+                double value = random.nextInt(5) - 2.0;
+                vector.setElement(index, value);
+                Expected[index] = value;
+            } else if(operation == 1){
+                double delta = random.nextInt(5) - 2.0;
+                vector.addTo(index, delta);
+                Expected[index] += delta;
+            } else {
+                vector.removeElement(index);
+                Expected[index] = 0.0;
+            }
+        }
+        int nonZero = 0;
+        for(int i = 0; i < 500; i++){
+            Assertions.assertEquals(Expected[i], vector.getElement(i), "Wrong Value at " + i);
+            if(Expected[i] != 0.0)
+                nonZero++;
+        }
+        Assertions.assertEquals(nonZero, vector.getNonZeroCount(), "Wrong number of non-zero Values");
+        Assertions.assertArrayEquals(Expected, vector.toArray(), "Arrays Are different");
+        Assertions.assertTrue(vector.equals(SparseVector.fromArray(Expected)), "Vectors are different");
+        Assertions.assertTrue(vector.toSparseVector().equals(SparseVector.fromArray(Expected)), "Sorted copy is different");
+    }
+
+    @org.junit.jupiter.api.Test
+    void addAndDot() {
+        double[] A = {1.0, 0.0, 2.0, 0.0, -1.0};
+        double[] B = {0.0, 3.0, -2.0, 0.0, 4.0};
+        HashSparseVector vector = HashSparseVector.fromSparseVector(SparseVector.fromArray(A));
+        Assertions.assertEquals(-8.0, vector.dot(SparseVector.fromArray(B)), "Wrong dot product");
+        vector.add(SparseVector.fromArray(B));
+        Assertions.assertArrayEquals(new double[]{1.0, 3.0, 0.0, 0.0, 3.0}, vector.toArray(), "Arrays Are different");
+        Assertions.assertEquals(3, vector.getNonZeroCount(), "Cancelled Value was kept");
+    }
+
+    //Random inserts move the adaptive Vector to the hash table, ordered operations back, filling up to dense
+    @org.junit.jupiter.api.Test
+    void adaptiveSwitchesStorage() {
+        AdaptiveSparseVector vector = new AdaptiveSparseVector(10000);
+        Random random = new Random(3);
+        double[] Expected = new double[10000];
+        for(int i = 0; i < 1000; i++){
+            int index = random.nextInt(10000);
+            vector.addTo(index, 1.0);
+            Expected[index] += 1.0;
+        }
+        Assertions.assertEquals(AdaptiveSparseVector.HASH, vector.getStorage(), "Random inserts should use the hash table");
+        SparseVector other = SparseVector.fromArray(Expected);
+        vector.dot(other);
+        vector.dot(other);
+        Assertions.assertEquals(AdaptiveSparseVector.SORTED, vector.getStorage(), "Ordered operations should use the sorted Arrays");
+        for(int i = 0; i < 10000; i += 2){
+            vector.setElement(i, 1.0);
+            Expected[i] = 1.0;
+        }
+        Assertions.assertEquals(AdaptiveSparseVector.DENSE, vector.getStorage(), "Half full Vector should be dense");
+        Assertions.assertArrayEquals(Expected, vector.toArray(), "Arrays Are different");
+        for(int i = 0; i < 10000; i++){
+            vector.removeElement(i);
+        }
+        Assertions.assertEquals(AdaptiveSparseVector.SORTED, vector.getStorage(), "Empty Vector should not stay dense");
+        Assertions.assertEquals(0, vector.getNonZeroCount(), "Vector should be empty");
+    }
+
+    //Right after a switch the storage stays until nnz / 4 operations have passed, even if the use changes at once
+    @org.junit.jupiter.api.Test
+    void adaptiveSwitchesNotTooOften() {
+        AdaptiveSparseVector vector = new AdaptiveSparseVector(1000000);
+        Random random = new Random(4);
+        while(vector.getStorage() != AdaptiveSparseVector.HASH){
+            vector.setElement(random.nextInt(1000000), 1.0);
+        }
+        int nnz = vector.getNonZeroCount();
+        SparseVector other = vector.toSparseVector();
+        int dots = 1;
+        while(vector.getStorage() == AdaptiveSparseVector.HASH){
+            vector.dot(other);
+            dots++;
+        }
+        Assertions.assertTrue(dots >= nnz / AdaptiveSparseVector.HYSTERESIS_DIVISOR, "Switched back after " + dots + " operations with " + nnz + " entries");
+        Assertions.assertTrue(dots <= nnz / AdaptiveSparseVector.HYSTERESIS_DIVISOR + AdaptiveSparseVector.ORDERED_OPS_TO_SORT, "Stayed in the hash table too long");
+        Assertions.assertEquals(AdaptiveSparseVector.SORTED, vector.getStorage(), "Ordered operations should use the sorted Arrays");
+    }
+
+    //Comparing does not count as an ordered operation and gives the same answer in every storage
+    @org.junit.jupiter.api.Test
+    void adaptiveEqualsDoesNotSwitch() {
+        AdaptiveSparseVector vector = new AdaptiveSparseVector(100000);
+        Random random = new Random(5);
+        while(vector.getStorage() != AdaptiveSparseVector.HASH){
+            vector.setElement(random.nextInt(100000), 1.0);
+        }
+        SparseVector same = SparseVector.fromArray(vector.toArray());
+        SparseVector different = same.copy();
+        different.setElement(same.indices[0], 2.0);
+        for(int i = 0; i < vector.getNonZeroCount(); i++){
+            Assertions.assertTrue(vector.equals(same), "Hash table is different");
+            Assertions.assertFalse(vector.equals(different), "Hash table equals a different Vector");
+        }
+        Assertions.assertEquals(AdaptiveSparseVector.HASH, vector.getStorage(), "Comparing switched the storage");
+        AdaptiveSparseVector dense = new AdaptiveSparseVector(4);
+        dense.setElement(0, 1.0);
+        dense.setElement(2, 3.0);
+        Assertions.assertEquals(AdaptiveSparseVector.DENSE, dense.getStorage(), "Half full Vector should be dense");
+        Assertions.assertTrue(dense.equals(SparseVector.fromArray(new double[]{1, 0, 3, 0})), "Dense Vector is different");
+        Assertions.assertFalse(dense.equals(SparseVector.fromArray(new double[]{1, 0, 3, 1})), "Dense Vector equals a Vector with more entries");
+        Assertions.assertFalse(dense.equals(SparseVector.fromArray(new double[]{1, 0, 3})), "Dense Vector equals a shorter Vector");
+    }
+}
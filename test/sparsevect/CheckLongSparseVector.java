@@ -0,0 +1,136 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.TreeMap;
+
+
+class CheckLongSparseVector {
+    private static final long LENGTH = 1L << 40;
+
+    //Indices beyond Integer.MAX_VALUE and around the int border
+    @org.junit.jupiter.api.Test
+    void setGetRemove() {
+        LongSparseVector A = new LongSparseVector(LENGTH);
+        long[] indices = {0, Integer.MAX_VALUE, 1L << 31, 5_000_000_000L, LENGTH - 1};
+        for(int i = 0; i < indices.length; i++){
+            A.setElement(indices[i], i + 1.0);
+        }
+        for(int i = 0; i < indices.length; i++){
+            Assertions.assertEquals(i + 1.0, A.getElement(indices[i]), "Wrong Value at " + indices[i]);
+        }
+        Assertions.assertEquals(0.0, A.getElement(5_000_000_001L));
+        Assertions.assertEquals(5, A.getNonZeroCount());
+        A.removeElement(5_000_000_000L);
+        A.setElement(0, 0.0);
+        Assertions.assertEquals(3, A.getNonZeroCount(), "Entries were not removed");
+        Exception exception = Assertions.assertThrows(IndexOutOfBoundsException.class, () -> A.setElement(LENGTH, 1.0), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Index of " + LENGTH + " is out of Bounds for length " + LENGTH));
+    }
+
+    //add, dot and equals against a TreeMap with the same entries
+    @org.junit.jupiter.api.Test
+    void addAndDot() {
+        Random random = new Random(21);
+        TreeMap<Long, Double> expected = new TreeMap<>();
+        LongSparseVector A = new LongSparseVector(LENGTH);
+        LongSparseVector B = new LongSparseVector(LENGTH);
+        double dot = 0.0;
+        TreeMap<Long, Double> b = new TreeMap<>();
+        for(int i = 0; i < 5000; i++){
+            //Few distinct high bits so indices cluster, and some collisions between A and B
+            long index = ((long) random.nextInt(8) << 37) + random.nextInt(3000);
+            double value = random.nextInt(7) - 3.0;
+            if(random.nextBoolean()){
+                A.setElement(index, value);
+                expected.put(index, value);
+            } else {
+                B.setElement(index, value);
+                b.put(index, value);
+            }
+        }
+        for(java.util.Map.Entry<Long, Double> entry : b.entrySet()){
+            dot += expected.getOrDefault(entry.getKey(), 0.0) * entry.getValue();
+            expected.merge(entry.getKey(), entry.getValue(), Double::sum);
+        }
+        expected.values().removeIf(value -> value == 0.0);
+        Assertions.assertEquals(dot, A.dot(B), 1e-9, "Wrong dot product");
+        LongSparseVector sum = A.plus(B);
+        A.add(B);
+        Assertions.assertTrue(sum.equals(A), "plus and add differ");
+        Assertions.assertEquals(expected.size(), A.getNonZeroCount(), "Cancelled entries were kept");
+        long[] previous = {-1};
+        A.forEachNonZero((index, value) -> {
+            Assertions.assertTrue(index > previous[0], "Entries out of order");
+            previous[0] = index;
+            Assertions.assertEquals(expected.get(index), value, "Wrong Value at " + index);
+        });
+        A.subtract(A);
+        Assertions.assertEquals(0, A.getNonZeroCount(), "Subtracting itself should give 0");
+        Assertions.assertThrows(ArithmeticException.class, () -> A.add(new LongSparseVector(5)));
+    }
+
+    //Converting from and to the int-indexed SparseVector keeps everything
+    @org.junit.jupiter.api.Test
+    void convert() {
+        SparseVector A = new SparseVector(Integer.MAX_VALUE);
+        A.setElement(3, 1.0);
+        A.setElement(1 << 30, 2.0);
+        A.setElement(Integer.MAX_VALUE - 1, 3.0);
+        LongSparseVector B = LongSparseVector.fromSparseVector(A);
+        Assertions.assertEquals(2.0, B.getElement(1L << 30));
+        Assertions.assertEquals(Integer.MAX_VALUE, B.getLength());
+        Assertions.assertTrue(A.equals(B.toSparseVector()), "Round trip changed the Vector");
+        Assertions.assertEquals(A.dot(A), B.dot(B), "Wrong dot product after converting");
+        Assertions.assertThrows(ArithmeticException.class, () -> new LongSparseVector(LENGTH).toSparseVector());
+    }
+
+    //Hashed indices spread over the whole index space, a long Vector against a short one takes the galloping dot
+    @org.junit.jupiter.api.Test
+    void spreadIndices() {
+        Random random = new Random(5);
+        int n = 20000;
+        long[] indices = new long[n];
+        double[] values = new double[n];
+        for(int i = 0; i < n; i++){
+            indices[i] = random.nextLong() & (LENGTH - 1);
+            values[i] = 1 + random.nextInt(9);
+        }
+        LongSparseVector A = LongSparseVector.fromPairs(LENGTH, indices, values);
+        LongSparseVector B = new LongSparseVector(LENGTH);
+        double dot = 0.0;
+        for(int i = 0; i < n; i += 500){
+            B.setElement(indices[i], 2.0);
+            dot += 2.0 * A.getElement(indices[i]);
+        }
+        B.setElement(LENGTH - 1, 1.0);
+        dot += A.getElement(LENGTH - 1);
+        Assertions.assertEquals(dot, A.dot(B), 1e-9, "Wrong galloping dot product");
+        Assertions.assertEquals(dot, B.dot(A), 1e-9, "Dot product is not symmetric");
+        LongSparseVector C = A.copy();
+        for(int i = n - 1; i >= 0; i--){
+            C.setElement(indices[i], 0.0);
+        }
+        Assertions.assertEquals(0, C.getNonZeroCount(), "Entries were not removed");
+        Assertions.assertEquals(A.getNonZeroCount(), A.plus(C).getNonZeroCount(), "Adding an empty Vector changed the count");
+    }
+
+    //Writing and reading back gives the same Vector
+    @org.junit.jupiter.api.Test
+    void writeAndRead() throws IOException {
+        LongSparseVector A = LongSparseVector.fromPairs(LENGTH, new long[]{LENGTH - 1, 7, 7, 1L << 35}, new double[]{1.5, 2.0, 0.5, -4.0});
+        Assertions.assertEquals(2.5, A.getElement(7), "Duplicates were not summed up");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        A.write(new DataOutputStream(bytes), false);
+        LongSparseVector B = LongSparseVector.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Assertions.assertTrue(A.equals(B), "Vector changed on the way through the file");
+        bytes.reset();
+        new LongSparseVector(10).write(new DataOutputStream(bytes), true);
+        Assertions.assertEquals(0, LongSparseVector.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))).getNonZeroCount());
+    }
+}
@@ -0,0 +1,96 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import java.util.Random;
+
+
+class CheckOffHeapSparseVector {
+
+    //The off-heap memory comes from jdk.incubator.foreign, which is only there with --add-modules
+    @org.junit.jupiter.api.BeforeEach
+    void foreignModulePresent() {
+        Assumptions.assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.foreign").isPresent(), "Run with --add-modules jdk.incubator.foreign");
+    }
+
+    //Setting in any order, overwriting and removing must work like the on-heap Vector
+    @org.junit.jupiter.api.Test
+    void setGetRemoveLikeOnHeap() {
+        try(OffHeapSparseVector offHeap = new OffHeapSparseVector(20, 1)){
+            SparseVector onHeap = new SparseVector(20);
+            int[] order = {10, 3, 19, 0, 7, 3, 15, 1};
+            for(int index : order){
+                offHeap.setElement(index, index + 0.5);
+                onHeap.setElement(index, index + 0.5);
+            }
+            offHeap.removeElement(3);
+            onHeap.removeElement(3);
+            offHeap.setElement(19, 0.0);
+            onHeap.setElement(19, 0.0);
+            Assertions.assertTrue(offHeap.equals(onHeap), "Off-heap and on-heap Vectors are different");
+            Assertions.assertEquals(10.5, offHeap.getElement(10), "Wrong Value at 10");
+            Assertions.assertEquals(0.0, offHeap.getElement(3), "Removed Value is still there");
+            Assertions.assertArrayEquals(onHeap.toArray(), offHeap.toArray(), "Arrays Are different");
+        }
+    }
+
+    //Adding an on-heap Vector, cancelled Values have to be dropped
+    @org.junit.jupiter.api.Test
+    void addOnHeapVector() {
+        double[] A = {1.0, 2.0, 0.0, -4.0, 0.0};
+        double[] B = {1.0, -2.0, 3.0, 0.0, 0.0};
+        try(OffHeapSparseVector offHeap = OffHeapSparseVector.fromSparseVector(SparseVector.fromArray(A))){
+            offHeap.add(SparseVector.fromArray(B));
+            Assertions.assertArrayEquals(new double[]{2.0, 0.0, 3.0, -4.0, 0.0}, offHeap.toArray(), "Arrays Are different");
+            Assertions.assertEquals(3, offHeap.getNonZeroCount(), "Cancelled Value was kept");
+            Assertions.assertTrue(offHeap.toSparseVector().equals(SparseVector.fromArray(A).plus(SparseVector.fromArray(B))), "Copy back is different");
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void addDifferentLengths() {
+        try(OffHeapSparseVector offHeap = new OffHeapSparseVector(5)){
+            Exception exception = Assertions.assertThrows(ArithmeticException.class, () -> offHeap.add(new SparseVector(4)), "Unexpected Exception Thrown");
+            Assertions.assertTrue(exception.getMessage().contains("Can not add Vectors of length 5 and 4"));
+        }
+    }
+
+    //Two off-heap Vectors are merged without going through the heap, growing on the way
+    @org.junit.jupiter.api.Test
+    void addOffHeapVector() {
+        Random random = new Random(6);
+        SparseVector expected = new SparseVector(1000);
+        try(OffHeapSparseVector sum = new OffHeapSparseVector(1000, 0)){
+            for(int round = 0; round < 20; round++){
+                SparseVector part = new SparseVector(1000);
+                for(int i = 0; i < 40; i++){
+                    part.setElement(random.nextInt(1000), random.nextInt(5) - 2);
+                }
+                //Every fourth round everything cancels out
+                if(round % 4 == 3){
+                    part = expected.copy();
+                    part.scale(-1.0);
+                }
+                try(OffHeapSparseVector offHeapPart = OffHeapSparseVector.fromSparseVector(part)){
+                    sum.add(offHeapPart);
+                }
+                expected.add(part);
+                Assertions.assertTrue(sum.equals(expected), "Sum is different after round " + round);
+            }
+            sum.add(sum);
+            expected.add(expected.copy());
+            Assertions.assertTrue(sum.equals(expected), "Adding the Vector to itself is different");
+        }
+    }
+
+    //After closing the memory is gone, using the Vector has to fail
+    @org.junit.jupiter.api.Test
+    void useAfterClose() {
+        OffHeapSparseVector offHeap = new OffHeapSparseVector(5);
+        offHeap.setElement(1, 1.0);
+        offHeap.close();
+        offHeap.close();
+        Exception exception = Assertions.assertThrows(IllegalStateException.class, () -> offHeap.getElement(1), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Vector is closed"));
+    }
+}
@@ -0,0 +1,106 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+class CheckPersistentSparseVector {
+
+    //Random with() calls must give the same Values as the same setElement() calls, and old versions must not change
+    @org.junit.jupiter.api.Test
+    void withMatchesSetElement() {
+        Random random = new Random(19);
+        SparseVector expected = new SparseVector(10000);
+        PersistentSparseVector vector = PersistentSparseVector.empty(10000);
+        List<PersistentSparseVector> versions = new ArrayList<>();
+        List<SparseVector> expectedVersions = new ArrayList<>();
+        for(int step = 0; step < 20000; step++){
+            int index = random.nextInt(10000);
+            //Every fourth change is a remove
+            double value = random.nextInt(4) == 0 ? 0.0 : random.nextInt(100) + 1.0;
+            expected.setElement(index, value);
+            vector = vector.with(index, value);
+            if(step % 2000 == 0){
+                versions.add(vector);
+                expectedVersions.add(expected.copy());
+            }
+        }
+        Assertions.assertTrue(expected.equals(vector.toSparseVector()), "Wrong entries after with()");
+        Assertions.assertEquals(expected.getNonZeroCount(), vector.getNonZeroCount(), "Wrong non-zero count");
+        for(int i = 0; i < 10000; i++){
+            Assertions.assertEquals(expected.getElement(i), vector.getElement(i), "Wrong Value at " + i);
+        }
+        for(int v = 0; v < versions.size(); v++){
+            Assertions.assertTrue(expectedVersions.get(v).equals(versions.get(v).toSparseVector()), "Old version " + v + " changed");
+        }
+    }
+
+    //freeze takes over the Arrays without copying and empties the SparseVector
+    @org.junit.jupiter.api.Test
+    void freezeTakesOverArrays() {
+        SparseVector source = new SparseVector(1000);
+        for(int i = 0; i < 1000; i += 2){
+            source.setElement(i, i + 1.0);
+        }
+        int[] indices = source.indices;
+        PersistentSparseVector frozen = PersistentSparseVector.freeze(source);
+        Assertions.assertEquals(0, source.getNonZeroCount(), "Source was not emptied");
+        Assertions.assertEquals(1000, source.getLength(), "Source lost its length");
+        source.setElement(1, 5.0);
+        Assertions.assertEquals(0.0, frozen.getElement(1), "Changing the source changed the frozen Vector");
+        Assertions.assertEquals(500, frozen.getNonZeroCount());
+        Assertions.assertEquals(11.0, frozen.getElement(10));
+
+        Assertions.assertTrue(frozen.usesArrays(indices), "freeze copied the Arrays");
+
+        //The first with() cuts the block into views of the same Arrays, only the changed block is copied
+        PersistentSparseVector changed = frozen.with(3, 7.0);
+        Assertions.assertEquals(7.0, changed.getElement(3));
+        Assertions.assertEquals(0.0, frozen.getElement(3), "Frozen Vector changed");
+        Assertions.assertEquals(11.0, changed.getElement(10));
+        Assertions.assertEquals(999.0, changed.getElement(998));
+        PersistentSparseVector again = changed.with(998, 1.0);
+        Assertions.assertTrue(changed.sharedBlocks(again) >= 4, "Untouched blocks were copied");
+        Assertions.assertEquals(999.0, changed.getElement(998), "Old version changed");
+    }
+
+    //plus has to give the same result as add on a SparseVector
+    @org.junit.jupiter.api.Test
+    void plusMatchesAdd() {
+        Random random = new Random(7);
+        for(int round = 0; round < 20; round++){
+            SparseVector a = new SparseVector(50000);
+            SparseVector b = new SparseVector(50000);
+            for(int n = random.nextInt(5000); n > 0; n--){
+                a.setElement(random.nextInt(50000), random.nextInt(5) - 2.0);
+            }
+            //Sometimes only a few entries, then most blocks are shared
+            for(int n = round % 2 == 0 ? random.nextInt(10) : random.nextInt(5000); n > 0; n--){
+                b.setElement(random.nextInt(50000), random.nextInt(5) - 2.0);
+            }
+            PersistentSparseVector persistent = PersistentSparseVector.of(a).with(0, 1.0);
+            a.setElement(0, 1.0);
+            PersistentSparseVector sum = persistent.plus(b).with(17, 1.5).plus(PersistentSparseVector.of(b));
+            SparseVector expected = a.copy();
+            expected.add(b);
+            expected.setElement(17, 1.5);
+            expected.add(b);
+            Assertions.assertTrue(expected.equals(sum.toSparseVector()), "Wrong sum in round " + round);
+            Assertions.assertTrue(PersistentSparseVector.of(a).equals(persistent), "plus changed the Vector in round " + round);
+            Assertions.assertArrayEquals(expected.toArray(), sum.toArray(), "Wrong array in round " + round);
+            if(b.getNonZeroCount() < 10 && a.getNonZeroCount() > 2000)
+                Assertions.assertTrue(persistent.sharedBlocks(persistent.plus(b)) > 0, "plus copied every block in round " + round);
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void outOfBounds() {
+        PersistentSparseVector vector = PersistentSparseVector.empty(5);
+        Exception exception = Assertions.assertThrows(IndexOutOfBoundsException.class, () -> vector.with(5, 1.0), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Index of 5 is out of Bounds for length 5"));
+        Assertions.assertThrows(ArithmeticException.class, () -> vector.plus(new SparseVector(4)));
+        Assertions.assertSame(vector, vector.with(2, 0.0), "Removing a missing entry should not copy");
+    }
+}
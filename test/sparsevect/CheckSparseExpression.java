@@ -0,0 +1,86 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+
+
+class CheckSparseExpression {
+
+    private static final double[] A = {1.0, 0.0, 2.0, 0.0, 3.0};
+    private static final double[] B = {0.0, 1.0, 1.0, 0.0, 0.0};
+    private static final double[] C = {1.0, 2.0, 4.0, 0.0, 3.0};
+
+    //a + 2b - c computed in one pass, cancelled entries are not stored
+    @org.junit.jupiter.api.Test
+    void evaluateLinearCombination() {
+        SparseVector a = SparseVector.fromArray(A);
+        SparseVector b = SparseVector.fromArray(B);
+        SparseVector c = SparseVector.fromArray(C);
+        SparseVector Result = SparseVector.expr(a).plus(2.0, b).minus(c).evaluate();
+        Assertions.assertArrayEquals(new double[5], Result.toArray(), "Arrays Are different");
+        Assertions.assertEquals(0, Result.getNonZeroCount(), "Cancelled entries were stored");
+        SparseVector Other = SparseVector.expr(a).plus(SparseVector.expr(b).times(3.0)).times(0.5).evaluate();
+        Assertions.assertArrayEquals(new double[]{0.5, 1.5, 2.5, 0.0, 1.5}, Other.toArray(), "Arrays Are different");
+    }
+
+    //Reductions must give the same as computing the Vector first
+    @org.junit.jupiter.api.Test
+    void reductionsWithoutResult() {
+        SparseVector a = SparseVector.fromArray(A);
+        SparseVector b = SparseVector.fromArray(B);
+        SparseVector c = SparseVector.fromArray(C);
+        SparseVector Expected = a.minus(b);
+        Assertions.assertEquals(Expected.dot(c), SparseVector.expr(a).minus(b).dot(c), "Wrong dot product");
+        Assertions.assertEquals(Expected.norm2(), SparseVector.expr(a).minus(b).norm2(), 1e-12, "Wrong L2 norm");
+        Assertions.assertEquals(Expected.norm1(), SparseVector.expr(a).minus(b).norm1(), "Wrong L1 norm");
+    }
+
+    //Evaluating into one of the terms works like a += b
+    @org.junit.jupiter.api.Test
+    void evaluateIntoTerm() {
+        SparseVector a = SparseVector.fromArray(A);
+        SparseVector b = SparseVector.fromArray(B);
+        double normBefore = a.norm2();
+        SparseVector.expr(a).plus(b).evaluateInto(a);
+        Assertions.assertArrayEquals(new double[]{1.0, 1.0, 3.0, 0.0, 3.0}, a.toArray(), "Arrays Are different");
+        Assertions.assertNotEquals(normBefore, a.norm2(), "Remembered norm was not reset");
+    }
+
+    //Evaluating into a Vector that is big enough keeps its Arrays, terms in front of and behind its entries are merged
+    @org.junit.jupiter.api.Test
+    void evaluateIntoReusesStorage() {
+        SparseVector a = SparseVector.fromArray(A);
+        SparseVector b = SparseVector.fromArray(B);
+        SparseVector target = new SparseVector(5, 5);
+        target.setElement(3, 7.0);
+        int[] storage = target.indices;
+        SparseVector.expr(a).plus(b).evaluateInto(target);
+        Assertions.assertArrayEquals(new double[]{1.0, 1.0, 3.0, 0.0, 3.0}, target.toArray(), "Arrays Are different");
+        Assertions.assertSame(storage, target.indices, "Storage of target was replaced");
+        //b has fewer entries than the result, target grows while it is read
+        SparseVector.expr(a).plus(-2.0, b).plus(b).evaluateInto(b);
+        Assertions.assertArrayEquals(new double[]{1.0, -1.0, 1.0, 0.0, 3.0}, b.toArray(), "Arrays Are different");
+        SparseVector.expr(a).minus(a).evaluateInto(a);
+        Assertions.assertEquals(0, a.getNonZeroCount(), "Cancelled entries were stored");
+    }
+
+    //plus, minus and times return new expressions, so a shared part stays the same
+    @org.junit.jupiter.api.Test
+    void expressionsAreImmutable() {
+        SparseVector a = SparseVector.fromArray(A);
+        SparseVector b = SparseVector.fromArray(B);
+        SparseExpression common = SparseVector.expr(a);
+        SparseExpression doubled = common.times(2.0);
+        SparseExpression sum = common.plus(b);
+        Assertions.assertArrayEquals(A, common.evaluate().toArray(), "Shared expression was changed");
+        Assertions.assertArrayEquals(new double[]{2.0, 0.0, 4.0, 0.0, 6.0}, doubled.evaluate().toArray(), "Arrays Are different");
+        Assertions.assertArrayEquals(new double[]{1.0, 1.0, 3.0, 0.0, 3.0}, sum.evaluate().toArray(), "Arrays Are different");
+        Assertions.assertArrayEquals(new double[]{1.0, 1.0, 3.0, 0.0, 3.0}, sum.plus(sum.minus(b)).minus(common.times(0.0)).minus(b).plus(b).minus(common).evaluate().toArray(), "Arrays Are different");
+    }
+
+    @org.junit.jupiter.api.Test
+    void differentLengths() {
+        SparseVector a = new SparseVector(5);
+        Exception exception = Assertions.assertThrows(ArithmeticException.class, () -> SparseVector.expr(a).plus(new SparseVector(4)), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Can not add Vectors of length 5 and 4"));
+    }
+}
@@ -0,0 +1,86 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+class CheckSparseMatrix {
+
+    //Small matrix that can be checked by hand
+    //  | 1 0 2 |
+    //  | 0 0 0 |
+    //  | 0 3 4 |
+    private static SparseMatrix smallMatrix(){
+        List<SparseVector> rows = new ArrayList<>();
+        rows.add(SparseVector.fromArray(new double[]{1.0, 0.0, 2.0}));
+        rows.add(new SparseVector(3));
+        rows.add(SparseVector.fromArray(new double[]{0.0, 3.0, 4.0}));
+        return SparseMatrix.fromRows(rows);
+    }
+
+    @org.junit.jupiter.api.Test
+    void multiplyDense() {
+        SparseMatrix A = smallMatrix();
+        double[] Result = A.multiply(new double[]{1.0, 2.0, 3.0});
+        Assertions.assertArrayEquals(new double[]{7.0, 0.0, 18.0}, Result, "Wrong product " + Arrays.toString(Result));
+        Assertions.assertEquals(4, A.getNonZeroCount(), "Wrong number of non-zero Values");
+    }
+
+    @org.junit.jupiter.api.Test
+    void multiplySparse() {
+        SparseMatrix A = smallMatrix();
+        SparseVector Result = A.multiply(SparseVector.fromArray(new double[]{0.0, 1.0, 0.0}));
+        Assertions.assertArrayEquals(new double[]{0.0, 0.0, 3.0}, Result.toArray(), "Wrong product");
+        Assertions.assertEquals(1, Result.getNonZeroCount(), "Zero rows were stored");
+    }
+
+    @org.junit.jupiter.api.Test
+    void transposeMultiply() {
+        SparseMatrix A = smallMatrix();
+        double[] Result = A.transposeMultiply(new double[]{1.0, 5.0, 2.0});
+        Assertions.assertArrayEquals(new double[]{1.0, 6.0, 10.0}, Result, "Wrong product " + Arrays.toString(Result));
+    }
+
+    //The parallel product has to be the same as the sequential one, with very uneven rows
+    @org.junit.jupiter.api.Test
+    void multiplyParallelMatchesSequential() {
+        Random random = new Random(42);
+        List<SparseVector> rows = new ArrayList<>();
+        for(int r = 0; r < 500; r++){
+            SparseVector.Builder row = new SparseVector.Builder(2000);
+            int entries = r % 50 == 0 ? 1500 : random.nextInt(20);
+            for(int c = 0; c < 2000 && entries > 0; c += 1 + random.nextInt(3), entries--){
+                row.append(c, random.nextInt(9) - 4.0);
+            }
+            rows.add(row.build());
+        }
+        SparseMatrix A = SparseMatrix.fromRows(rows);
+        double[] x = new double[2000];
+        for(int i = 0; i < x.length; i++){
+            x[i] = random.nextInt(5);
+        }
+        double[] Expected = A.multiply(x);
+        Assertions.assertArrayEquals(Expected, A.multiplyParallel(x), "Common pool result is different");
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Assertions.assertArrayEquals(Expected, A.multiplyParallel(x, executor, 3), "Executor result is different");
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertTrue(A.getRow(50).equals(rows.get(50)), "Row 50 is different");
+    }
+
+    @org.junit.jupiter.api.Test
+    void rowsOfDifferentLength() {
+        List<SparseVector> rows = new ArrayList<>();
+        rows.add(new SparseVector(3));
+        rows.add(new SparseVector(4));
+        Exception exception = Assertions.assertThrows(ArithmeticException.class, () -> SparseMatrix.fromRows(rows), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Row 1 has length 4 but the matrix has 3 columns"));
+    }
+}
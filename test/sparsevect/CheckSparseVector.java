@@ -0,0 +1,664 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+
+class CheckSparseVector {
+
+    //Setting different lengths
+    @org.junit.jupiter.api.Test
+    void setGetLengths() {
+        SparseVector length0 = new SparseVector();
+        SparseVector length5 = new SparseVector(5);
+        int length0Result = length0.getLength();
+        int length5Result = length5.getLength();
+        Assertions.assertEquals(0, length0Result, "length should be 0, is: " + length0Result);
+        Assertions.assertEquals(5, length5Result, "length should be 5, is: " + length5Result);
+    }
+
+    //Getting Values from an all 0 Vector
+    @org.junit.jupiter.api.Test
+    void getFromAllZeroVector() {
+        SparseVector AllZero = new SparseVector(5);
+        double Result = AllZero.getElement(2);
+        Assertions.assertEquals(0.0, Result, "Expected value: 0.0, is " + Result);
+    }
+
+    //Checking if Values can be set/get
+    @org.junit.jupiter.api.Test
+    void setAndGetElement() {
+        SparseVector newV = new SparseVector(3);
+        newV.setElement(0,1.0);
+        Double nodeValue = newV.getElement(0);
+        Assertions.assertEquals(1.0, nodeValue, "Set/Get Difference, expected: 1.0, actual: " + nodeValue);
+    }
+
+    @org.junit.jupiter.api.Test
+    void setElement0() {
+        SparseVector OneToZeroVect = new SparseVector(2);
+        OneToZeroVect.setElement(0, 1.0);
+        OneToZeroVect.setElement(0, 0.0);
+        double Result = OneToZeroVect.getElement(0);
+        Assertions.assertEquals(0.0, Result, "Setting to 0.0, expected 0.0, is: " + Result);
+    }
+
+    //Adding in different Orders should still produce the same 2 Vectors
+    @org.junit.jupiter.api.Test
+    void SettingDifferentOrdersIsEqual() {
+        SparseVector A = new SparseVector(12);
+        //Setting A
+        A.setElement(4, 4.0);
+        A.setElement(1, 1.0);
+        A.setElement(10, 2.0);
+        A.setElement(11, 8.0);
+        A.setElement(6, 2.0);
+        //Setting B
+        SparseVector B = new SparseVector(12);
+        B.setElement(1, 1.0);
+        B.setElement(4, 4.0);
+        B.setElement(6, 2.0);
+        B.setElement(10, 2.0);
+        B.setElement(11, 8.0);
+        Assertions.assertTrue(A.equals(B), "Vectors A and B are different");
+    }
+
+    //Setting the head Element, the rest of the Vector has to stay the same and must not be forgotten
+    @org.junit.jupiter.api.Test
+    void setIndex0() {
+        SparseVector newV = new SparseVector(3);
+        newV.setElement(1,1.0);
+        newV.setElement(0,2.0);
+        Double nodeValue = newV.getElement(0);
+        Assertions.assertEquals(2.0, nodeValue, "Set/Get Difference, expected: 2.0, actual: " + nodeValue);
+    }
+
+
+    //Removing the head must make the second Element the new head
+    @org.junit.jupiter.api.Test
+    void removeElementAtHead() {
+        SparseVector newV = new SparseVector(2);
+        newV.setElement(0,1.0);
+        newV.setElement(1,2.0);
+        newV.removeElement(0);
+        Double nodeValue = newV.getElement(0);
+        Assertions.assertEquals(0.0, nodeValue, "removed wrong Element, expected: 0.0, actual: " + nodeValue);
+    }
+
+    //Removing at the Tail does not cause Exceptions
+    @org.junit.jupiter.api.Test
+    void removeElementAtTail() {
+        SparseVector newV = new SparseVector(2);
+        newV.setElement(0,1.0);
+        newV.setElement(1,2.0);
+        newV.removeElement(1);
+        Double nodeValue = newV.getElement(1);
+        Assertions.assertEquals(0.0, nodeValue, "removed wrong Element, expected: 0.0, actual: " + nodeValue);
+    }
+
+    //The Vector must be linked correctly after removing an element between head and Tail
+    @org.junit.jupiter.api.Test
+    void removeSecondElement() {
+        SparseVector newV = new SparseVector(3);
+        newV.setElement(0,1.0);
+        newV.setElement(1,2.0);
+        newV.setElement(2,3.0);
+        newV.removeElement(1);
+        Double nodeValue = newV.getElement(1);
+        Assertions.assertEquals(0.0, nodeValue, "removed wrong Element, expected: 0.0, actual: " + nodeValue);
+        nodeValue = newV.getElement(2);
+        Assertions.assertEquals(3.0, nodeValue, "removed wrong Element, expected: 3.0, actual: " + nodeValue);
+    }
+
+    //The length should be returned
+    @org.junit.jupiter.api.Test
+    void getLength() {
+        SparseVector newV = new SparseVector(10);
+        int length = newV.getLength();
+        Assertions.assertEquals(10, length, "set wrong length, expected: 10, actual: " + length);
+    }
+
+    //Two Vectors with the same length and same Elements should be the same
+    @org.junit.jupiter.api.Test
+    void testEqualsVectorsEqual() {
+        double[] A = {1.0,2.0,3.0,4.0,5.0};
+        SparseVector newA = new SparseVector(5).toSparseVector(A);
+        SparseVector newB = new SparseVector(5).toSparseVector(A);
+        boolean equal = newA.equals(newB);
+        Assertions.assertTrue(equal, "Expected SparseVectors to be equal");
+    }
+
+    //Two Vectors with different Elements should be different
+    @org.junit.jupiter.api.Test
+    void testEqualsVectorsValuesNotEqual() {
+        double[] A = {1.0,2.0,3.0,4.0,5.0};
+        double[] B = {0.0,1.0,2.0,3.0,4.0};
+        SparseVector newA = new SparseVector(5).toSparseVector(A);
+        SparseVector newB = new SparseVector(5).toSparseVector(B);
+        boolean equal = newA.equals(newB);
+        Assertions.assertFalse(equal, "Expected SparseVectors to be different");
+    }
+
+    @org.junit.jupiter.api.Test
+    void testEqualsVectorsLengthNotEqual() {
+        SparseVector newA = new SparseVector(1);
+        SparseVector newB = new SparseVector(2);
+        boolean equal = newA.equals(newB);
+        Assertions.assertFalse(equal, "Expected SparseVectors to be different");
+    }
+
+    //Adding while one Vector is empty should Change the "me" Vector
+    @org.junit.jupiter.api.Test
+    void addOtherVectIsEmpty() {
+        double[] A = {1.0,2.0,3.0,4.0,5.0};
+        SparseVector newA = new SparseVector(5).toSparseVector(A);
+        SparseVector newB = new SparseVector(5);
+        newA.add(newB);
+        double[] Result = newA.toArray();
+        Assertions.assertArrayEquals(A, Result, "Arrays Are different");
+    }
+
+    //Adding while one Vector is empty should Change the Me Vector. This time the "me" Vector is empty
+    @org.junit.jupiter.api.Test
+    void addMeVectIsEmpty() {
+        double[] B = {1.0,2.0,3.0,4.0,5.0};
+        SparseVector newA = new SparseVector(5);
+        SparseVector newB = new SparseVector(5).toSparseVector(B);
+        newA.add(newB);
+        double[] Result = newA.toArray();
+        Assertions.assertArrayEquals(B, Result, "Arrays Are different");
+    }
+
+    //Making sure the Reference to Other Vect stays the same and is not just copied into the original Vector
+    @org.junit.jupiter.api.Test
+    void addMeVectIsEmptyReferenceToOtherIsNotCopied() {
+        double[] B = {1.0,2.0,3.0,4.0,5.0};
+        SparseVector newA = new SparseVector(5);
+        SparseVector newB = new SparseVector(5).toSparseVector(B);
+        newA.add(newB);
+        newB.setElement(0, 1.1);
+        B[0] = 1.1;
+        double[] Result = newB.toArray();
+        Assertions.assertArrayEquals(B, Result, "Arrays Are different");
+    }
+
+    //Adding two Vectors leads to the Expected Results
+    @org.junit.jupiter.api.Test
+    void add2Vects(){
+        double[] A = {1.0,2.0,-3.0,-4.0,5.0};
+        double[] B = {1.0,-2.0,2.0,4.0,-4.0};
+        double[] ExpectedResult = {2.0, 0.0, -1.0, 0.0, 1.0};
+        SparseVector newA = new SparseVector(5).toSparseVector(A);
+        SparseVector newB = new SparseVector(5).toSparseVector(B);
+        newA.add(newB);
+        double[] Result = newA.toArray();
+        Assertions.assertArrayEquals(ExpectedResult, Result,"Arrays Are different Expected: " + Arrays.toString(ExpectedResult) + " Actual: " + Arrays.toString(Result));
+    }
+
+    //Adding Vectors, where this indices are 0 after the second element and others start after the fith, to check if the references are correct
+    @org.junit.jupiter.api.Test
+    void add2VectsCheckNodes(){
+        SparseVector A = new SparseVector(6);
+        SparseVector B = new SparseVector(6);
+        A.setElement(0,1.0);
+        A.setElement(1,1.0);
+        B.setElement(4, 4.0);
+        B.setElement(5, 5.0);
+        A.add(B);
+        B.setElement(4, 4.4);
+        double[] ResultA = A.toArray();
+        double[] ExpectedA = {1.0, 1.0, 0.0, 0.0, 4.0, 5.0};
+        double[] ResultB = B.toArray();
+        double[] ExpectedB = {0.0, 0.0, 0.0, 0.0, 4.4, 5.0};
+        Assertions.assertArrayEquals(ExpectedA, ResultA, "Vector A differs From expected Result after Addition");
+        Assertions.assertArrayEquals(ExpectedB, ResultB, "Vector B differs From expected Result after Addition");
+    }
+
+
+    //Adding different Lengths leads to an error
+    @org.junit.jupiter.api.Test
+    void add2DifferentLengths(){
+        SparseVector newA = new SparseVector(5);
+        SparseVector newB = new SparseVector(4);
+        Exception exception = Assertions.assertThrows(ArithmeticException.class, () -> newA.add(newB), "Unexpected Exception Thrown");
+        String expectedMessage = "Can not add Vectors of length 5 and 4";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    //Out of Bounds Errors for Get, Set, Remove
+    @org.junit.jupiter.api.Test
+    void AccessIndexOutOfBounds_getElement(){
+        SparseVector newA = new SparseVector(1);
+        Exception exception = Assertions.assertThrows(IndexOutOfBoundsException.class, () -> newA.getElement(2), "Unexpected Exception Thrown");
+        String expectedMessage = "Index of 2 is out of Bounds for length 1";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    @org.junit.jupiter.api.Test
+    void AccessIndexOutOfBounds_setElement(){
+        SparseVector newA = new SparseVector(1);
+        Exception exception = Assertions.assertThrows(IndexOutOfBoundsException.class, () -> newA.setElement(2, 1.0), "Unexpected Exception Thrown");
+        String expectedMessage = "Index of 2 is out of Bounds for length 1";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    @org.junit.jupiter.api.Test
+    void AccessIndexOutOfBounds_removeElement(){
+        SparseVector newA = new SparseVector(1);
+        Exception exception = Assertions.assertThrows(IndexOutOfBoundsException.class, () -> newA.removeElement(2), "Unexpected Exception Thrown");
+        String expectedMessage = "Index of 2 is out of Bounds for length 1";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    //Negative Vector size throws an Error because negative Dimensions should not exist
+    @org.junit.jupiter.api.Test
+    void NegativeVectorSize(){
+        Exception exception = Assertions.assertThrows(NegativeArraySizeException.class, () -> new SparseVector(-1), "Unexpected Exception Thrown");
+        String expectedMessage = "Vector cant have negative Dimensions";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+
+    //Setting in random order and removing again must keep the entries sorted, no matter where the Arrays had to grow
+    @org.junit.jupiter.api.Test
+    void setRandomOrderAndRemove(){
+        SparseVector A = new SparseVector(100, 2);
+        double[] Expected = new double[100];
+        int[] order = {42, 7, 99, 0, 13, 64, 8, 31, 77, 50, 1, 98};
+        for(int index : order){
+            A.setElement(index, index + 1.0);
+            Expected[index] = index + 1.0;
+        }
+        A.removeElement(7);
+        A.removeElement(99);
+        A.removeElement(0);
+        Expected[7] = 0.0;
+        Expected[99] = 0.0;
+        Expected[0] = 0.0;
+        Assertions.assertEquals(9, A.getNonZeroCount(), "Wrong number of non-zero Values");
+        Assertions.assertArrayEquals(Expected, A.toArray(), "Arrays Are different");
+    }
+
+    @org.junit.jupiter.api.Test
+    void NegativeCapacity(){
+        Exception exception = Assertions.assertThrows(NegativeArraySizeException.class, () -> new SparseVector(5, -1), "Unexpected Exception Thrown");
+        String expectedMessage = "Vector cant have a negative capacity";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    //Subtracting a Vector from itself has to leave no entries behind
+    @org.junit.jupiter.api.Test
+    void subtractSelfIsEmpty(){
+        double[] A = {1.0,0.0,3.0,0.0,5.0};
+        SparseVector newA = new SparseVector(5).toSparseVector(A);
+        newA.subtract(newA);
+        Assertions.assertEquals(0, newA.getNonZeroCount(), "Cancelled entries were not dropped");
+        Assertions.assertArrayEquals(new double[5], newA.toArray(), "Arrays Are different");
+    }
+
+    //axpy with entries cancelling in front of entries that are kept
+    @org.junit.jupiter.api.Test
+    void axpyDropsCancelledEntries(){
+        double[] A = {1.0,1.0,1.0,0.0,0.0,2.0};
+        double[] X = {0.5,0.5,0.0,3.0,1.0,0.0};
+        double[] ExpectedResult = {0.0, 0.0, 1.0, -6.0, -2.0, 2.0};
+        SparseVector newA = new SparseVector(6).toSparseVector(A);
+        SparseVector newX = new SparseVector(6).toSparseVector(X);
+        newA.axpy(-2.0, newX);
+        double[] Result = newA.toArray();
+        Assertions.assertArrayEquals(ExpectedResult, Result, "Arrays Are different Expected: " + Arrays.toString(ExpectedResult) + " Actual: " + Arrays.toString(Result));
+        Assertions.assertEquals(4, newA.getNonZeroCount(), "Cancelled entries were not dropped");
+    }
+
+    //plus, minus and plusScaled must not change either Vector
+    @org.junit.jupiter.api.Test
+    void plusMinusReturnNewVectors(){
+        double[] A = {1.0,2.0,0.0,-4.0};
+        double[] B = {1.0,0.0,3.0,4.0};
+        SparseVector newA = new SparseVector(4).toSparseVector(A);
+        SparseVector newB = new SparseVector(4).toSparseVector(B);
+        Assertions.assertArrayEquals(new double[]{2.0, 2.0, 3.0, 0.0}, newA.plus(newB).toArray(), "plus is wrong");
+        Assertions.assertArrayEquals(new double[]{0.0, 2.0, -3.0, -8.0}, newA.minus(newB).toArray(), "minus is wrong");
+        Assertions.assertArrayEquals(new double[]{3.0, 2.0, 6.0, 4.0}, newA.plusScaled(2.0, newB).toArray(), "plusScaled is wrong");
+        Assertions.assertEquals(3, newA.plus(newB).getNonZeroCount(), "Cancelled entries were not dropped");
+        Assertions.assertArrayEquals(A, newA.toArray(), "Vector A was changed");
+        Assertions.assertArrayEquals(B, newB.toArray(), "Vector B was changed");
+    }
+
+    @org.junit.jupiter.api.Test
+    void subtract2DifferentLengths(){
+        SparseVector newA = new SparseVector(5);
+        SparseVector newB = new SparseVector(4);
+        Exception exception = Assertions.assertThrows(ArithmeticException.class, () -> newA.subtract(newB), "Unexpected Exception Thrown");
+        String expectedMessage = "Can not subtract Vectors of length 5 and 4";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    //Dot product with a sparse and a dense Vector, including one Vector being much shorter than the other
+    @org.junit.jupiter.api.Test
+    void dotProducts(){
+        SparseVector A = new SparseVector(1000);
+        SparseVector B = new SparseVector(1000);
+        double Expected = 0.0;
+        for(int i = 0; i < 1000; i++){
+            A.setElement(i, i % 7 + 1.0);
+        }
+        B.setElement(3, 2.0);
+        B.setElement(500, -1.0);
+        B.setElement(999, 0.5);
+        Expected += 2.0 * (3 % 7 + 1.0) - (500 % 7 + 1.0) + 0.5 * (999 % 7 + 1.0);
+        Assertions.assertEquals(Expected, A.dot(B), "Wrong dot product");
+        Assertions.assertEquals(Expected, B.dot(A), "Dot product is not symmetric");
+        Assertions.assertEquals(Expected, B.dot(A.toArray()), "Wrong dot product with array");
+    }
+
+    @org.junit.jupiter.api.Test
+    void norms(){
+        double[] A = {3.0,0.0,-4.0,0.0};
+        SparseVector newA = new SparseVector(4).toSparseVector(A);
+        Assertions.assertEquals(7.0, newA.norm1(), "Wrong L1 norm");
+        Assertions.assertEquals(5.0, newA.norm2(), "Wrong L2 norm");
+        Assertions.assertEquals(4.0, newA.normInf(), "Wrong infinity norm");
+        //The remembered norm has to be forgotten when the Vector changes
+        newA.setElement(2, 0.0);
+        Assertions.assertEquals(3.0, newA.norm2(), "Norm was not updated after setElement");
+        newA.add(new SparseVector(4).toSparseVector(new double[]{0.0, 4.0, 0.0, 0.0}));
+        Assertions.assertEquals(5.0, newA.norm2(), "Norm was not updated after add");
+    }
+
+    @org.junit.jupiter.api.Test
+    void cosineSimilarity(){
+        SparseVector A = new SparseVector(3).toSparseVector(new double[]{1.0, 1.0, 0.0});
+        SparseVector B = new SparseVector(3).toSparseVector(new double[]{2.0, 2.0, 0.0});
+        SparseVector C = new SparseVector(3).toSparseVector(new double[]{0.0, 0.0, 5.0});
+        Assertions.assertEquals(1.0, A.cosine(B), 1e-12, "Parallel Vectors should have cosine 1");
+        Assertions.assertEquals(0.0, A.cosine(C), "Orthogonal Vectors should have cosine 0");
+        Assertions.assertEquals(0.0, A.cosine(new SparseVector(3)), "Empty Vector should have cosine 0");
+    }
+
+    //fromArray has to give the same Vector as setting every Element by hand
+    @org.junit.jupiter.api.Test
+    void fromArrayMatchesSetElement(){
+        double[] A = {0.0,2.0,0.0,-4.0,5.0,0.0};
+        SparseVector newA = SparseVector.fromArray(A);
+        SparseVector newB = new SparseVector(6);
+        newB.setElement(1, 2.0);
+        newB.setElement(3, -4.0);
+        newB.setElement(4, 5.0);
+        Assertions.assertTrue(newA.equals(newB), "Vectors A and B are different");
+        Assertions.assertEquals(3, newA.getNonZeroCount(), "Wrong number of non-zero Values");
+    }
+
+    //Unsorted pairs are sorted, duplicates summed up and cancelled Values dropped
+    @org.junit.jupiter.api.Test
+    void fromPairsSortsAndSums(){
+        int[] indices = {5, 1, 3, 1, 5, 0, 5};
+        double[] values = {1.0, 2.0, 3.0, 4.0, -1.0, 0.0, 2.5};
+        double[] Expected = {0.0, 6.0, 0.0, 3.0, 0.0, 2.5};
+        SparseVector newA = SparseVector.fromPairs(6, indices, values);
+        Assertions.assertArrayEquals(Expected, newA.toArray(), "Arrays Are different");
+        Assertions.assertEquals(3, newA.getNonZeroCount(), "Wrong number of non-zero Values");
+        int[] cancelling = {2, 2};
+        Assertions.assertEquals(0, SparseVector.fromPairs(6, cancelling, new double[]{1.0, -1.0}).getNonZeroCount(), "Cancelled Value was kept");
+    }
+
+    //A Builder can be used again after build and the Vectors do not share storage
+    @org.junit.jupiter.api.Test
+    void builderAppendInOrder(){
+        SparseVector.Builder builder = new SparseVector.Builder(10, 1);
+        SparseVector A = builder.append(0, 1.0).append(4, 0.0).append(7, 2.0).append(9, 3.0).build();
+        SparseVector B = builder.append(2, 5.0).build();
+        A.setElement(2, 1.0);
+        Assertions.assertArrayEquals(new double[]{1.0, 0.0, 1.0, 0.0, 0.0, 0.0, 0.0, 2.0, 0.0, 3.0}, A.toArray(), "Vector A is wrong");
+        Assertions.assertArrayEquals(new double[]{0.0, 0.0, 5.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0}, B.toArray(), "Vector B is wrong");
+    }
+
+    @org.junit.jupiter.api.Test
+    void builderIndexOutOfBounds(){
+        SparseVector.Builder builder = new SparseVector.Builder(1);
+        Exception exception = Assertions.assertThrows(IndexOutOfBoundsException.class, () -> builder.append(2, 1.0), "Unexpected Exception Thrown");
+        String expectedMessage = "Index of 2 is out of Bounds for length 1";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    //scatterAdd and dot with a normal Vector, long enough to use the SIMD path if it is available
+    @org.junit.jupiter.api.Test
+    void scatterAddAndDotWithArray(){
+        double[] A = new double[200];
+        double[] B = new double[200];
+        double[] Expected = new double[200];
+        double ExpectedDot = 0.0;
+        for(int i = 0; i < 200; i++){
+            A[i] = i % 3 == 0 ? 0.0 : i % 5 - 2.0;
+            B[i] = i % 7;
+            Expected[i] = B[i] + 2.0 * A[i];
+            ExpectedDot += A[i] * B[i];
+        }
+        SparseVector newA = SparseVector.fromArray(A);
+        Assertions.assertEquals(ExpectedDot, newA.dot(B), "Wrong dot product with array");
+        newA.scatterAdd(2.0, B);
+        Assertions.assertArrayEquals(Expected, B, "Arrays Are different");
+        Assertions.assertArrayEquals(A, newA.toArray(), "toArray is wrong");
+    }
+
+    //forEachNonZero visits every entry in order
+    @org.junit.jupiter.api.Test
+    void forEachNonZeroInOrder(){
+        SparseVector A = SparseVector.fromArray(new double[]{0.0, 1.0, 0.0, 3.0, 4.0});
+        StringBuilder visited = new StringBuilder();
+        A.forEachNonZero((index, value) -> visited.append(index).append('=').append(value).append(' '));
+        Assertions.assertEquals("1=1.0 3=3.0 4=4.0 ", visited.toString(), "Wrong entries visited");
+        Assertions.assertArrayEquals(new int[]{1, 3, 4}, A.nonZeroIndices().toArray(), "Wrong indices");
+        Assertions.assertEquals(8.0, A.nonZeroValues().sum(), "Wrong Values");
+    }
+
+    //A Cursor walks, skips forward and can be moved to another Vector
+    @org.junit.jupiter.api.Test
+    void cursorAdvanceAndSkip(){
+        SparseVector A = new SparseVector(1000);
+        for(int i = 0; i < 1000; i += 10){
+            A.setElement(i, i + 1.0);
+        }
+        SparseVector.Cursor cursor = A.cursor();
+        Assertions.assertTrue(cursor.advance(), "Cursor should find the first entry");
+        Assertions.assertEquals(0, cursor.index(), "Wrong first index");
+        Assertions.assertTrue(cursor.skipTo(555), "Cursor should find an entry after 555");
+        Assertions.assertEquals(560, cursor.index(), "Wrong index after skipTo");
+        Assertions.assertTrue(cursor.skipTo(100), "skipTo backwards should stay");
+        Assertions.assertEquals(561.0, cursor.value(), "skipTo went backwards");
+        Assertions.assertTrue(cursor.skipTo(990), "Cursor should find the last entry");
+        Assertions.assertFalse(cursor.advance(), "Cursor should be at the end");
+        Assertions.assertFalse(cursor.skipTo(0), "Cursor should stay at the end");
+        Assertions.assertThrows(IllegalStateException.class, cursor::index, "Cursor at the end has no entry");
+        cursor.reset(SparseVector.fromArray(new double[]{0.0, 2.0}));
+        Assertions.assertTrue(cursor.advance(), "Cursor should find the entry of the new Vector");
+        Assertions.assertEquals(1, cursor.index(), "Wrong index in the new Vector");
+        Assertions.assertFalse(cursor.advance(), "New Vector has only one entry");
+    }
+
+    //Summing up with the heap merge, split up between threads and with the dense scratch array must all agree
+    @org.junit.jupiter.api.Test
+    void sumManyVectors(){
+        Random random = new Random(11);
+        List<SparseVector> vectors = new ArrayList<>();
+        double[] Expected = new double[5000];
+        for(int v = 0; v < 3000; v++){
+            SparseVector.Builder builder = new SparseVector.Builder(5000);
+            for(int e = 0; e < 3; e++){
+                int index = random.nextInt(5000);
+                double value = random.nextInt(3) - 1.0;
+                builder.append(index, value);
+                Expected[index] += value;
+            }
+            vectors.add(builder.build());
+        }
+        double[] Merged = SparseVector.sum(vectors.subList(0, 1000), Double.MAX_VALUE).toArray();
+        double[] ExpectedMerged = new double[5000];
+        for(SparseVector vector : vectors.subList(0, 1000)){
+            vector.scatterAdd(1.0, ExpectedMerged);
+        }
+        Assertions.assertArrayEquals(ExpectedMerged, Merged, "Heap merge is wrong");
+        Assertions.assertArrayEquals(Expected, SparseVector.sum(vectors, Double.MAX_VALUE).toArray(), "Parallel sum is wrong");
+        Assertions.assertArrayEquals(Expected, SparseVector.sum(vectors, 0.0).toArray(), "Dense sum is wrong");
+        Assertions.assertTrue(SparseVector.sum(vectors).equals(SparseVector.fromArray(Expected)), "Sum has cancelled entries left");
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            Assertions.assertArrayEquals(Expected, SparseVector.sum(vectors, Double.MAX_VALUE, pool).toArray(), "Sum in own pool is wrong");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void sumNoVectors(){
+        Exception exception = Assertions.assertThrows(IllegalArgumentException.class, () -> SparseVector.sum(new ArrayList<>()), "Unexpected Exception Thrown");
+        Assertions.assertTrue(exception.getMessage().contains("Can not sum up zero Vectors"));
+    }
+
+    //Element-wise and support operations against the same operation on dense arrays, for similar and very different sizes
+    @org.junit.jupiter.api.Test
+    void elementWiseOperations(){
+        Random random = new Random(18);
+        int length = 4000;
+        for(int[] sizes : new int[][]{{50, 60}, {5, 2000}, {2000, 5}, {0, 30}}){
+            double[] A = new double[length];
+            double[] B = new double[length];
+            for(int n = 0; n < sizes[0]; n++){
+                A[random.nextInt(length)] = random.nextInt(5) - 2.0;
+            }
+            for(int n = 0; n < sizes[1]; n++){
+                B[random.nextInt(length)] = random.nextInt(5) - 2.0;
+            }
+            //Make sure there are common indices, also at the ends
+            A[0] = B[0] = 1.0;
+            A[length - 1] = B[length - 1] = -1.0;
+            double[] Product = new double[length], Min = new double[length], Max = new double[length];
+            double[] Retained = new double[length], Removed = new double[length], United = new double[length];
+            for(int i = 0; i < length; i++){
+                Product[i] = A[i] * B[i];
+                Min[i] = Math.min(A[i], B[i]);
+                Max[i] = Math.max(A[i], B[i]);
+                Retained[i] = B[i] != 0.0 ? A[i] : 0.0;
+                Removed[i] = B[i] != 0.0 ? 0.0 : A[i];
+                United[i] = A[i] != 0.0 ? A[i] : B[i];
+            }
+            SparseVector a = SparseVector.fromArray(A);
+            SparseVector b = SparseVector.fromArray(B);
+            String sizeText = Arrays.toString(sizes);
+            Assertions.assertTrue(SparseVector.hadamard(a, b).equals(SparseVector.fromArray(Product)), "Wrong product " + sizeText);
+            Assertions.assertTrue(SparseVector.min(a, b).equals(SparseVector.fromArray(Min)), "Wrong min " + sizeText);
+            Assertions.assertTrue(SparseVector.max(a, b).equals(SparseVector.fromArray(Max)), "Wrong max " + sizeText);
+            Assertions.assertTrue(SparseVector.intersection(a, b).equals(SparseVector.fromArray(Retained)), "Wrong intersection " + sizeText);
+            Assertions.assertTrue(SparseVector.difference(a, b).equals(SparseVector.fromArray(Removed)), "Wrong difference " + sizeText);
+            Assertions.assertTrue(SparseVector.union(a, b).equals(SparseVector.fromArray(United)), "Wrong union " + sizeText);
+            //The new-Vector forms must not change their inputs
+            Assertions.assertTrue(a.equals(SparseVector.fromArray(A)), "Input was changed " + sizeText);
+
+            SparseVector c = a.copy();
+            c.multiplyElements(b);
+            Assertions.assertTrue(c.equals(SparseVector.fromArray(Product)), "Wrong product in place " + sizeText);
+            c = a.copy();
+            c.minElements(b);
+            Assertions.assertTrue(c.equals(SparseVector.fromArray(Min)), "Wrong min in place " + sizeText);
+            c = a.copy();
+            c.maxElements(b);
+            Assertions.assertTrue(c.equals(SparseVector.fromArray(Max)), "Wrong max in place " + sizeText);
+            c = a.copy();
+            c.retainAll(b);
+            Assertions.assertTrue(c.equals(SparseVector.fromArray(Retained)), "Wrong intersection in place " + sizeText);
+            c = a.copy();
+            c.removeAll(b);
+            Assertions.assertTrue(c.equals(SparseVector.fromArray(Removed)), "Wrong difference in place " + sizeText);
+            c = a.copy();
+            c.addAll(b);
+            Assertions.assertTrue(c.equals(SparseVector.fromArray(United)), "Wrong union in place " + sizeText);
+            Assertions.assertEquals(SparseVector.fromArray(United).norm2(), c.norm2(), 1e-12, "Norm was not updated " + sizeText);
+            //With itself as other, entries are read and written in the same Arrays
+            c = a.copy();
+            c.multiplyElements(c);
+            Assertions.assertTrue(c.equals(SparseVector.hadamard(a, a.copy())), "Wrong product with itself " + sizeText);
+            c = a.copy();
+            c.removeAll(c);
+            Assertions.assertEquals(0, c.getNonZeroCount(), "Removing itself should leave nothing " + sizeText);
+        }
+    }
+
+    //Element-wise operations on different Lengths lead to an error
+    @org.junit.jupiter.api.Test
+    void elementWiseDifferentLengths(){
+        SparseVector newA = new SparseVector(3);
+        SparseVector newB = new SparseVector(4);
+        Exception exception = Assertions.assertThrows(ArithmeticException.class, () -> newA.minElements(newB), "Unexpected Exception Thrown");
+        String expectedMessage = "Can not compare Vectors of length 3 and 4";
+        String actualMessage = exception.getMessage();
+        Assertions.assertTrue(actualMessage.contains(expectedMessage));
+    }
+
+    //scale, mapValues and pruneBelow change the Values in place and drop the entries that become 0 or too small
+    @org.junit.jupiter.api.Test
+    void bulkTransforms(){
+        SparseVector A = SparseVector.fromArray(new double[]{0.0, 2.0, -0.5, 0.0, 4.0, 1e-300});
+        A.scale(-2.0);
+        Assertions.assertArrayEquals(new double[]{0.0, -4.0, 1.0, 0.0, -8.0, -2e-300}, A.toArray(), "Wrong scale");
+        A.scale(1e-100);
+        Assertions.assertEquals(3, A.getNonZeroCount(), "Underflowed Value was kept");
+        A.scale(1e100);
+        A.mapValues(v -> v > 0 ? 0.0 : v * v);
+        Assertions.assertArrayEquals(new double[]{0.0, 16.0, 0.0, 0.0, 64.0, 0.0}, A.toArray(), 1e-9, "Wrong mapValues");
+        Assertions.assertEquals(Math.sqrt(16.0 * 16.0 + 64.0 * 64.0), A.norm2(), 1e-9, "Norm was not updated");
+        A.pruneBelow(20.0);
+        Assertions.assertEquals(1, A.getNonZeroCount(), "Wrong prune");
+        Assertions.assertEquals(64.0, A.getElement(4), 1e-9);
+        A.scale(0.0);
+        Assertions.assertEquals(0, A.getNonZeroCount(), "Scaling by 0 should remove everything");
+    }
+
+    //retainTopK keeps the k largest |value|, lower indices win on ties, and gives memory back
+    @org.junit.jupiter.api.Test
+    void retainTopK(){
+        Random random = new Random(22);
+        for(int round = 0; round < 50; round++){
+            double[] Values = new double[300];
+            for(int i = 0; i < Values.length; i++){
+                if(random.nextInt(3) == 0)
+                    Values[i] = random.nextInt(21) - 10.0;
+            }
+            SparseVector A = SparseVector.fromArray(Values);
+            int k = random.nextInt(A.getNonZeroCount() + 2);
+            //Expected: sort the entries by |value| descending and index ascending, keep the first k
+            List<Integer> order = new ArrayList<>();
+            for(int i = 0; i < Values.length; i++){
+                if(Values[i] != 0.0)
+                    order.add(i);
+            }
+            order.sort((a, b) -> Math.abs(Values[a]) != Math.abs(Values[b]) ? Double.compare(Math.abs(Values[b]), Math.abs(Values[a])) : Integer.compare(a, b));
+            double[] Expected = new double[Values.length];
+            for(int i : order.subList(0, Math.min(k, order.size()))){
+                Expected[i] = Values[i];
+            }
+            A.retainTopK(k);
+            Assertions.assertArrayEquals(Expected, A.toArray(), "Wrong entries kept for k = " + k);
+        }
+        SparseVector B = new SparseVector(100000);
+        for(int i = 0; i < 100000; i++){
+            B.setElement(i, i + 1.0);
+        }
+        B.retainTopK(10);
+        Assertions.assertEquals(10, B.getNonZeroCount());
+        Assertions.assertEquals(99991.0, B.getElement(99990), "Smallest kept Value is wrong");
+        Assertions.assertTrue(B.indices.length < 100, "Capacity was not released");
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+class CheckSparseVectorFile {
+
+    //Writing and reading back has to give the same Vectors in the same order
+    @org.junit.jupiter.api.Test
+    void writeAndReadBack() throws IOException {
+        Path file = Files.createTempFile("vectors", ".spv");
+        SparseVector A = SparseVector.fromArray(new double[]{0.0, 1.5, 0.0, -2.0});
+        SparseVector B = new SparseVector(300000000);
+        B.setElement(0, 3.0);
+        B.setElement(128, 4.0);
+        B.setElement(299999999, -5.0);
+        SparseVector C = new SparseVector(7);
+        try(SparseVectorWriter writer = new SparseVectorWriter(file, false)){
+            writer.write(A);
+            writer.write(B);
+            writer.write(C);
+        }
+        try(SparseVectorReader reader = new SparseVectorReader(file)){
+            MappedSparseVector readA = reader.next();
+            MappedSparseVector readB = reader.next();
+            MappedSparseVector readC = reader.next();
+            Assertions.assertFalse(reader.hasNext(), "Reader found more Vectors than were written");
+            Assertions.assertTrue(readA.equals(A), "Vector A is different after reading");
+            Assertions.assertTrue(readB.equals(B), "Vector B is different after reading");
+            Assertions.assertTrue(readC.equals(C), "Vector C is different after reading");
+            Assertions.assertEquals(-5.0, readB.getElement(299999999), "Wrong Value at the last index");
+            Assertions.assertEquals(0.0, readB.getElement(127), "Wrong Value at an empty index");
+            Assertions.assertArrayEquals(A.toArray(), readA.toArray(), "Arrays Are different");
+            Assertions.assertTrue(readB.toSparseVector().equals(B), "Decoded Vector B is different");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //Values written as floats lose precision, but small whole numbers stay exact
+    @org.junit.jupiter.api.Test
+    void floatValues() throws IOException {
+        Path file = Files.createTempFile("vectors", ".spv");
+        SparseVector A = SparseVector.fromArray(new double[]{0.0, 1.0, 0.1, -2.0});
+        try(SparseVectorWriter writer = new SparseVectorWriter(file, true)){
+            writer.write(A);
+        }
+        try(SparseVectorReader reader = new SparseVectorReader(file)){
+            MappedSparseVector readA = reader.next();
+            Assertions.assertEquals(1.0, readA.getElement(1), "Wrong Value at 1");
+            Assertions.assertEquals((float) 0.1, readA.getElement(2), "Wrong Value at 2");
+            Assertions.assertEquals(3, readA.getNonZeroCount(), "Wrong number of non-zero Values");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //Values too small for a float are not written as stored 0.0 entries
+    @org.junit.jupiter.api.Test
+    void floatUnderflow() throws IOException {
+        Path file = Files.createTempFile("vectors", ".spv");
+        SparseVector A = SparseVector.fromArray(new double[]{1e-300, 1.0, 0.0, -1e-60, 2.0});
+        try(SparseVectorWriter writer = new SparseVectorWriter(file, true)){
+            writer.write(A);
+        }
+        try(SparseVectorReader reader = new SparseVectorReader(file)){
+            MappedSparseVector readA = reader.next();
+            Assertions.assertEquals(2, readA.getNonZeroCount(), "Underflowed Values were written");
+            Assertions.assertEquals(2.0, readA.getElement(4), "Wrong Value at 4");
+            Assertions.assertEquals(2, readA.toSparseVector().getNonZeroCount(), "Decoded Vector stores 0.0");
+            Assertions.assertEquals(4, A.getNonZeroCount(), "Written Vector was changed");
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //Broken record headers are reported with what is wrong instead of failing somewhere in the mapping
+    @org.junit.jupiter.api.Test
+    void corruptHeader() throws IOException {
+        Path file = Files.createTempFile("vectors", ".spv");
+        //length, nnz, encoding, indexBytes of one record each
+        int[][] headers = {{10, 1, 7, 1}, {10, -1, 0, 1}, {10, 1, 0, -8}, {10, 11, 0, 11}};
+        String[] messages = {"Unknown value encoding 7", "Corrupt header", "Corrupt header", "Corrupt header"};
+        try {
+            for(int h = 0; h < headers.length; h++){
+                try(DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))){
+                    out.writeInt(SparseVectorWriter.MAGIC);
+                    out.writeByte(SparseVectorWriter.VERSION);
+                    out.writeInt(headers[h][0]);
+                    out.writeInt(headers[h][1]);
+                    out.writeByte(headers[h][2]);
+                    out.writeInt(headers[h][3]);
+                    out.write(new byte[64]);
+                }
+                try(SparseVectorReader reader = new SparseVectorReader(file)){
+                    Exception exception = Assertions.assertThrows(IllegalStateException.class, reader::next, "Unexpected Exception Thrown");
+                    Assertions.assertInstanceOf(IOException.class, exception.getCause(), "Cause is not an IOException");
+                    Assertions.assertTrue(exception.getMessage().contains(messages[h]), "Unclear message " + exception.getMessage());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @org.junit.jupiter.api.Test
+    void notAVectorFile() throws IOException {
+        Path file = Files.createTempFile("vectors", ".spv");
+        try(OutputStream out = Files.newOutputStream(file)){
+            out.write(new byte[]{1, 2, 3, 4, 5, 6});
+        }
+        try {
+            Exception exception = Assertions.assertThrows(IOException.class, () -> new SparseVectorReader(file), "Unexpected Exception Thrown");
+            Assertions.assertTrue(exception.getMessage().contains("Not a SparseVector file"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
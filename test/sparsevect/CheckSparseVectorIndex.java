@@ -0,0 +1,153 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+class CheckSparseVectorIndex {
+
+    private static SparseVector randomVector(Random random, int length, int nnz){
+        SparseVector vector = new SparseVector(length);
+        for(int i = 0; i < nnz; i++){
+            //Some negative Values, so the bounds have to work with absolute Values
+            vector.setElement(random.nextInt(length), random.nextDouble() * 2 - 0.5);
+        }
+        return vector;
+    }
+
+    //Top k by comparing with every live Vector, only Vectors sharing a Dimension with the query count
+    private static List<SparseVectorIndex.Hit> bruteForce(List<SparseVector> corpus, boolean[] removed, SparseVector query, int k, boolean cosine){
+        List<SparseVectorIndex.Hit> hits = new ArrayList<>();
+        for(int id = 0; id < corpus.size(); id++){
+            SparseVector vector = corpus.get(id);
+            boolean shares = false;
+            for(int i = 0; i < query.getNonZeroCount(); i++){
+                shares |= vector.getElement(query.indices[i]) != 0.0;
+            }
+            if(removed[id] || !shares)
+                continue;
+            double score = cosine ? vector.cosine(query) : vector.dot(query);
+            hits.add(new SparseVectorIndex.Hit(id, score));
+        }
+        hits.sort(Comparator.comparingDouble(SparseVectorIndex.Hit::score).reversed().thenComparingInt(SparseVectorIndex.Hit::id));
+        return hits.subList(0, Math.min(k, hits.size()));
+    }
+
+    private static void assertSameHits(List<SparseVectorIndex.Hit> expected, List<SparseVectorIndex.Hit> actual){
+        Assertions.assertEquals(expected.size(), actual.size(), "Wrong number of hits");
+        for(int i = 0; i < expected.size(); i++){
+            Assertions.assertEquals(expected.get(i).score(), actual.get(i).score(), 1e-9, "Wrong score at rank " + i);
+            Assertions.assertEquals(expected.get(i).id(), actual.get(i).id(), "Wrong id at rank " + i);
+        }
+    }
+
+    //Small index that can be checked by hand
+    @org.junit.jupiter.api.Test
+    void smallIndex() {
+        SparseVectorIndex index = new SparseVectorIndex(4);
+        int a = index.add(SparseVector.fromArray(new double[]{1, 0, 0, 0}));
+        int b = index.add(SparseVector.fromArray(new double[]{0, 2, 0, 1}));
+        int c = index.add(SparseVector.fromArray(new double[]{3, 1, 0, 0}));
+        List<SparseVectorIndex.Hit> hits = index.topK(SparseVector.fromArray(new double[]{1, 1, 0, 0}), 2);
+        Assertions.assertEquals(c, hits.get(0).id());
+        Assertions.assertEquals(4.0, hits.get(0).score());
+        Assertions.assertEquals(b, hits.get(1).id());
+        Assertions.assertEquals(2, hits.size());
+        //Nothing shares Dimension 2
+        Assertions.assertTrue(index.topK(SparseVector.fromArray(new double[]{0, 0, 1, 0}), 2).isEmpty());
+        Assertions.assertTrue(index.remove(c));
+        Assertions.assertFalse(index.remove(c), "Removed twice");
+        hits = index.topK(SparseVector.fromArray(new double[]{1, 1, 0, 0}), 5);
+        Assertions.assertEquals(2, hits.size());
+        Assertions.assertEquals(b, hits.get(0).id());
+        Assertions.assertEquals(a, hits.get(1).id());
+        Assertions.assertEquals(2, index.size());
+    }
+
+    //An empty Vector is not counted in either mode, removing it must not change the size
+    @org.junit.jupiter.api.Test
+    void addRemoveEmptyVector() {
+        for(int similarity : new int[]{SparseVectorIndex.DOT, SparseVectorIndex.COSINE}){
+            SparseVectorIndex index = new SparseVectorIndex(4, similarity);
+            int a = index.add(SparseVector.fromArray(new double[]{1, 0, 0, 0}));
+            int empty = index.add(new SparseVector(4));
+            Assertions.assertEquals(1, index.size(), "Empty Vector was counted");
+            Assertions.assertTrue(index.remove(empty), "Empty Vector could not be removed");
+            Assertions.assertEquals(1, index.size(), "Removing the empty Vector changed the size");
+            Assertions.assertTrue(index.remove(a));
+            Assertions.assertEquals(0, index.size(), "Size is not 0 after removing everything");
+        }
+    }
+
+    //Asking for every match must not allocate room for Integer.MAX_VALUE hits
+    @org.junit.jupiter.api.Test
+    void topKAllMatches() {
+        SparseVectorIndex index = new SparseVectorIndex(4);
+        index.add(SparseVector.fromArray(new double[]{1, 0, 0, 0}));
+        index.add(SparseVector.fromArray(new double[]{2, 1, 0, 0}));
+        index.add(SparseVector.fromArray(new double[]{0, 0, 1, 0}));
+        List<SparseVectorIndex.Hit> hits = index.topK(SparseVector.fromArray(new double[]{1, 1, 0, 0}), Integer.MAX_VALUE);
+        Assertions.assertEquals(2, hits.size(), "Wrong number of hits");
+        Assertions.assertEquals(3.0, hits.get(0).score(), "Wrong best score");
+        Assertions.assertTrue(new SparseVectorIndex(4).topK(SparseVector.fromArray(new double[]{1, 0, 0, 0}), Integer.MAX_VALUE).isEmpty(), "Empty index has hits");
+    }
+
+    //MaxScore has to find the same top k as comparing with everything, for dot and cosine, also after removes
+    @org.junit.jupiter.api.Test
+    void matchesBruteForce() {
+        Random random = new Random(17);
+        for(int similarity : new int[]{SparseVectorIndex.DOT, SparseVectorIndex.COSINE}){
+            int length = 500;
+            SparseVectorIndex index = new SparseVectorIndex(length, similarity);
+            List<SparseVector> corpus = new ArrayList<>();
+            boolean[] removed = new boolean[2000];
+            for(int i = 0; i < 2000; i++){
+                SparseVector vector = randomVector(random, length, 1 + random.nextInt(30));
+                corpus.add(vector);
+                Assertions.assertEquals(i, index.add(vector));
+            }
+            for(int round = 0; round < 3; round++){
+                for(int q = 0; q < 30; q++){
+                    SparseVector query = randomVector(random, length, 1 + random.nextInt(15));
+                    int k = 1 + random.nextInt(20);
+                    assertSameHits(bruteForce(corpus, removed, query, k, similarity == SparseVectorIndex.COSINE), index.topK(query, k));
+                }
+                //Remove enough to run into a compaction
+                for(int i = 0; i < 700; i++){
+                    int id = random.nextInt(corpus.size());
+                    Assertions.assertEquals(!removed[id], index.remove(id));
+                    removed[id] = true;
+                }
+            }
+        }
+    }
+
+    //Batches of queries in parallel give the same results as one by one
+    @org.junit.jupiter.api.Test
+    void parallelQueries() {
+        Random random = new Random(3);
+        SparseVectorIndex index = new SparseVectorIndex(1000, SparseVectorIndex.COSINE);
+        for(int i = 0; i < 3000; i++){
+            index.add(randomVector(random, 1000, 20));
+        }
+        List<SparseVector> queries = new ArrayList<>();
+        for(int q = 0; q < 64; q++){
+            queries.add(randomVector(random, 1000, 10));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<List<SparseVectorIndex.Hit>> results = index.topK(queries, 10, executor);
+            for(int q = 0; q < queries.size(); q++){
+                assertSameHits(index.topK(queries.get(q), 10), results.get(q));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assertions.assertThrows(ArithmeticException.class, () -> index.topK(new SparseVector(5), 3));
+    }
+}
@@ -0,0 +1,155 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+class CheckTextVectorReader {
+
+    private static List<SparseVector> readAll(TextVectorReader reader, Path file, List<Double> labels, ExecutorService executor) throws IOException {
+        List<SparseVector> vectors = new ArrayList<>();
+        long rows = reader.read(file, (label, features) -> {
+            labels.add(label);
+            vectors.add(features);
+        }, executor, 4);
+        Assertions.assertEquals(vectors.size(), rows, "Wrong row count");
+        return vectors;
+    }
+
+    //Small file with the special cases, read in tiny chunks so lines and chunks do not line up
+    @org.junit.jupiter.api.Test
+    void readLibSvm() throws IOException {
+        Path file = Files.createTempFile("vectors", ".svm");
+        Files.writeString(file, "1 1:0.5 3:-2e1 # comment\r\n"
+                + "\n"
+                + "# whole line comment\n"
+                + "-1 qid:3 5:1.25 2:4 5:0.75\n"
+                + "+0.5\t4:0 1:1E-3\n"
+                + "0 5:123456789.123456789");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Double> labels = new ArrayList<>();
+            List<SparseVector> vectors = readAll(new TextVectorReader(5, TextVectorReader.LIBSVM, false, 7), file, labels, executor);
+            Assertions.assertEquals(List.of(1.0, -1.0, 0.5, 0.0), labels, "Wrong labels");
+            Assertions.assertArrayEquals(new double[]{0.5, 0, -20, 0, 0}, vectors.get(0).toArray());
+            //Unsorted with a duplicate index
+            Assertions.assertArrayEquals(new double[]{0, 4, 0, 0, 2}, vectors.get(1).toArray());
+            Assertions.assertArrayEquals(new double[]{0.001, 0, 0, 0, 0}, vectors.get(2).toArray());
+            Assertions.assertEquals(1, vectors.get(2).getNonZeroCount(), "Zero was stored");
+            Assertions.assertEquals(123456789.123456789, vectors.get(3).getElement(4));
+        } finally {
+            executor.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    //Many random rows written with Double.toString must come back exactly and in order
+    @org.junit.jupiter.api.Test
+    void readManyRows() throws IOException {
+        Random random = new Random(20);
+        Path libsvm = Files.createTempFile("vectors", ".svm");
+        Path csv = Files.createTempFile("vectors", ".csv");
+        List<SparseVector> expected = new ArrayList<>();
+        StringBuilder libsvmText = new StringBuilder();
+        StringBuilder csvText = new StringBuilder();
+        for(int row = 0; row < 3000; row++){
+            double[] values = new double[40];
+            libsvmText.append(row);
+            csvText.append(row);
+            for(int i = 0; i < 40; i++){
+                if(random.nextInt(4) == 0){
+                    //Mix of short decimals and full precision doubles over a wide range
+                    values[i] = random.nextBoolean() ? random.nextInt(2000) / 8.0 - 100 : random.nextGaussian() * Math.pow(10, random.nextInt(40) - 20);
+                    libsvmText.append(' ').append(i).append(':').append(values[i]);
+                }
+                csvText.append(',').append(values[i]);
+            }
+            libsvmText.append('\n');
+            csvText.append('\n');
+            expected.add(SparseVector.fromArray(values));
+        }
+        Files.writeString(libsvm, libsvmText);
+        Files.writeString(csv, csvText);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            TextVectorReader libsvmReader = new TextVectorReader(40, TextVectorReader.LIBSVM, true, 4096);
+            TextVectorReader csvReader = new TextVectorReader(40, TextVectorReader.CSV, false, 1000);
+            for(Object[] input : new Object[][]{{libsvmReader, libsvm}, {csvReader, csv}}){
+                List<Double> labels = new ArrayList<>();
+                List<SparseVector> vectors = readAll((TextVectorReader) input[0], (Path) input[1], labels, executor);
+                Assertions.assertEquals(expected.size(), vectors.size(), "Wrong number of rows");
+                for(int row = 0; row < expected.size(); row++){
+                    Assertions.assertEquals(row, labels.get(row), "Rows out of order");
+                    Assertions.assertTrue(expected.get(row).equals(vectors.get(row)), "Wrong Values in row " + row + " of " + input[1]);
+                }
+            }
+        } finally {
+            executor.shutdown();
+            Files.delete(libsvm);
+            Files.delete(csv);
+        }
+    }
+
+    //Malformed lines are reported with their position in the file
+    @org.junit.jupiter.api.Test
+    void badInput() throws IOException {
+        Path file = Files.createTempFile("vectors", ".svm");
+        Files.writeString(file, "1 1:2\n1 7:2\n");
+        try {
+            TextVectorReader reader = new TextVectorReader(5, TextVectorReader.LIBSVM);
+            Exception exception = Assertions.assertThrows(IOException.class, () -> reader.read(file, (label, features) -> { }), "Unexpected Exception Thrown");
+            Assertions.assertTrue(exception.getMessage().contains("Index 6 is out of Bounds for length 5 at byte 8"), exception.getMessage());
+            Files.writeString(file, "1 3:x1\n");
+            exception = Assertions.assertThrows(IOException.class, () -> reader.read(file, (label, features) -> { }), "Unexpected Exception Thrown");
+            Assertions.assertTrue(exception.getMessage().contains("Bad number 'x1' at byte 4"), exception.getMessage());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //The number parser has to give exactly what Double.parseDouble gives
+    @org.junit.jupiter.api.Test
+    void parseNumbers() throws IOException {
+        Random random = new Random(5);
+        StringBuilder text = new StringBuilder();
+        List<Double> expected = new ArrayList<>();
+        String[] fixed = {"0", "-0.0", "1", "0.1", "123.456", "1e22", "1e23", "4.9e-324", "1.7976931348623157e308", "0.000001234",
+                "00012", "1.", ".5", "9007199254740993", "123456789012345678901234567890", "-2.5E-3", "NaN", "-Infinity"};
+        for(String number : fixed){
+            text.append(number).append('\n');
+            expected.add(Double.parseDouble(number));
+        }
+        for(int i = 0; i < 5000; i++){
+            double value = switch(random.nextInt(3)){
+                case 0 -> Double.longBitsToDouble(random.nextLong());
+                case 1 -> random.nextInt(100000) / 1000.0;
+                default -> random.nextGaussian() * Math.pow(10, random.nextInt(60) - 30);
+            };
+            if(Double.isNaN(value))
+                continue;
+            String number = random.nextBoolean() ? Double.toString(value) : String.format(Locale.ROOT, "%.6e", value);
+            text.append(number).append('\n');
+            expected.add(Double.parseDouble(number));
+        }
+        List<Double> labels = new ArrayList<>();
+        Path file = Files.createTempFile("numbers", ".svm");
+        try {
+            Files.writeString(file, text);
+            new TextVectorReader(1, TextVectorReader.LIBSVM).read(file, (label, features) -> labels.add(label));
+        } finally {
+            Files.delete(file);
+        }
+        Assertions.assertEquals(expected.size(), labels.size(), "Wrong number of rows");
+        for(int i = 0; i < expected.size(); i++){
+            Assertions.assertEquals(Double.doubleToLongBits(expected.get(i)), Double.doubleToLongBits(labels.get(i)), "Wrong number in row " + i + ": " + expected.get(i));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package sparsevect;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+
+class CheckVectorMetrics {
+
+    //Buckets are powers of two, 0 has its own
+    @org.junit.jupiter.api.Test
+    void bucketsArePowersOfTwo() {
+        Assertions.assertEquals(0, VectorMetrics.bucket(0), "0 is not in its own bucket");
+        Assertions.assertEquals(1, VectorMetrics.bucket(1), "Wrong bucket for 1");
+        Assertions.assertEquals(2, VectorMetrics.bucket(2), "Wrong bucket for 2");
+        Assertions.assertEquals(2, VectorMetrics.bucket(3), "Wrong bucket for 3");
+        Assertions.assertEquals(11, VectorMetrics.bucket(1024), "Wrong bucket for 1024");
+        Assertions.assertEquals(VectorMetrics.BUCKETS - 1, VectorMetrics.bucket(Integer.MAX_VALUE), "Largest int is not in the last bucket");
+    }
+
+    //Recorded values show up in the counters, the histograms and the sink
+    @org.junit.jupiter.api.Test
+    void reportToSink() {
+        VectorMetrics.reset();
+        VectorMetrics.record(VectorMetrics.Operation.GET, 5);
+        VectorMetrics.record(VectorMetrics.Operation.GET, 0);
+        VectorMetrics.recordMoved(100);
+        Map<String, Long> counters = new HashMap<>();
+        Map<String, long[]> histograms = new HashMap<>();
+        VectorMetrics.report(new VectorMetrics.MetricsSink() {
+            public void counter(String name, long value){
+                counters.put(name, value);
+            }
+
+            public void histogram(String name, long[] buckets){
+                histograms.put(name, buckets);
+            }
+        });
+        Assertions.assertEquals(2L, counters.get("sparsevector.ops.get"), "Wrong get count");
+        Assertions.assertEquals(0L, counters.get("sparsevector.ops.add"), "Add was never recorded");
+        Assertions.assertEquals(1L, histograms.get("sparsevector.nnz")[0], "nnz of 0 is missing");
+        Assertions.assertEquals(1L, histograms.get("sparsevector.nnz")[3], "nnz of 5 is missing");
+        Assertions.assertEquals(1L, histograms.get("sparsevector.moved")[7], "100 moved entries are missing");
+        VectorMetrics.reset();
+        Assertions.assertEquals(0L, VectorMetrics.count(VectorMetrics.Operation.GET), "Reset did not clear the counter");
+    }
+
+    //SparseVector counts its operations when started with -Dsparsevector.metrics=true
+    @org.junit.jupiter.api.Test
+    void sparseVectorIsCounted() {
+        Assumptions.assumeTrue(VectorMetrics.ENABLED, "Metrics are off, run with -Dsparsevector.metrics=true");
+        VectorMetrics.reset();
+        SparseVector vector = new SparseVector(100);
+        vector.setElement(10, 1.0);
+        vector.setElement(5, 2.0);
+        vector.getElement(10);
+        vector.add(vector.copy());
+        vector.toArray();
+        SparseVector.fromArray(new double[]{0, 1});
+        Assertions.assertEquals(2L, VectorMetrics.count(VectorMetrics.Operation.SET), "Wrong set count");
+        Assertions.assertEquals(1L, VectorMetrics.count(VectorMetrics.Operation.GET), "Wrong get count");
+        Assertions.assertEquals(1L, VectorMetrics.count(VectorMetrics.Operation.ADD), "Wrong add count");
+        Assertions.assertEquals(1L, VectorMetrics.count(VectorMetrics.Operation.TO_ARRAY), "Wrong toArray count");
+        Assertions.assertEquals(1L, VectorMetrics.count(VectorMetrics.Operation.FROM_ARRAY), "Wrong fromArray count");
+        //Inserting 5 in front of 10 moved one entry
+        Assertions.assertEquals(1L, VectorMetrics.movedEntriesHistogram()[1], "Moved entry is missing");
+    }
+
+    //Setting 0.0 removes the entry and is only counted as a remove
+    @org.junit.jupiter.api.Test
+    void setZeroCountsOnlyRemove() {
+        Assumptions.assumeTrue(VectorMetrics.ENABLED, "Metrics are off, run with -Dsparsevector.metrics=true");
+        SparseVector vector = new SparseVector(10);
+        vector.setElement(3, 1.0);
+        VectorMetrics.reset();
+        vector.setElement(3, 0.0);
+        Assertions.assertEquals(0L, VectorMetrics.count(VectorMetrics.Operation.SET), "Removing through setElement was counted as a set");
+        Assertions.assertEquals(1L, VectorMetrics.count(VectorMetrics.Operation.REMOVE), "Wrong remove count");
+    }
+
+    //The MXBean shows the same values as the static methods
+    @org.junit.jupiter.api.Test
+    void mBeanShowsCounters() throws Exception {
+        VectorMetrics.reset();
+        VectorMetrics.registerMBean();
+        VectorMetrics.registerMBean();
+        VectorMetrics.record(VectorMetrics.Operation.DOT, 3);
+        Object dots = ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(VectorMetrics.OBJECT_NAME), "DotCount");
+        Assertions.assertEquals(1L, dots, "MXBean shows a different dot count");
+    }
+}